@@ -1,4 +1,10 @@
 #!/usr/bin/env bash
 cd src/main/java
-SOURCE_FILES=$(find . -name "*.java" \! -regex ".*model.*" \! -regex ".*\/RemoteProcessClient\.java" \! -regex ".*\/Runner\.java" \! -regex ".*\/Strategy\.java")
+# The server compiles the solution with its own model, RemoteProcessClient, Runner and Strategy. Classes used only
+# by the local runner and its tools depend on the extended versions of these and are left out as well.
+EXCLUDED_CLASSES="RemoteProcessClient Runner Strategy JfrTraceBackend AllocationMeter DeadlineMoveExecutor \
+DeltaCodec LatencyHistogram LazyWorld MappedFileAppender MultiSessionRunner ParallelMoveExecutor ReplayServer \
+RunnerSettings TickJournal TickLatencies WarmUp WireMetrics WorldColumns WorldPredictor"
+EXCLUDED_REGEX=".*model.*\|.*/\($(echo ${EXCLUDED_CLASSES} | sed 's/ /\\|/g')\)\.java"
+SOURCE_FILES=$(find . -name "*.java" \! -regex "${EXCLUDED_REGEX}")
 echo "${SOURCE_FILES}" | zip ../../../solution.zip -@
\ No newline at end of file
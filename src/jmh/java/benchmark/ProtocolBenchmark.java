@@ -0,0 +1,153 @@
+package benchmark;
+
+import model.Car;
+import model.Game;
+import model.Move;
+import model.PlayerContext;
+import model.UnitPool;
+import model.World;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@code RemoteProcessClient} decoding player contexts and encoding moves against in-memory streams.
+ * <p>
+ * The {@code journal} parameter points to a directory recorded with {@code -Drunner.journal}; when empty, a
+ * synthetic game is used. {@link #main(String[])} takes the usual JMH options and adds the GC profiler, so every
+ * result comes with its allocation rate ({@code gc.alloc.rate.norm} is bytes per operation).
+ * <p>
+ * JMH does not accept benchmarks in the default package, and classes of the default package can't be named from any
+ * other, so the client is reached through method handles.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtocolBenchmark {
+    @Param("")
+    public String journal;
+
+    @Param({"eager", "lazy", "pooled"})
+    public String decoding;
+
+    private Object client;
+
+    private MethodHandle readPlayerContext;
+    private MethodHandle writeMoves;
+
+    private Move[] moves;
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+
+    @Setup
+    public void setUp() throws Throwable {
+        WireCapture capture = journal.isEmpty() ? WireCapture.synthetic() : WireCapture.fromJournal(new File(journal));
+
+        Class<?> clientClass = Class.forName("RemoteProcessClient");
+        Constructor<?> constructor = clientClass.getDeclaredConstructor(InputStream.class, OutputStream.class);
+        constructor.setAccessible(true);
+        client = constructor.newInstance(capture.newInputStream(), new NullOutputStream());
+
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        readPlayerContext = lookup.findVirtual(clientClass, "readPlayerContext", MethodType.methodType(
+                PlayerContext.class
+        )).asType(MethodType.methodType(PlayerContext.class, Object.class));
+        writeMoves = lookup.findVirtual(clientClass, "writeMoves", MethodType.methodType(
+                void.class, Move[].class
+        )).asType(MethodType.methodType(void.class, Object.class, Move[].class));
+
+        if ("lazy".equals(decoding)) {
+            lookup.findVirtual(clientClass, "setLazyWorldDecoding", MethodType.methodType(void.class, boolean.class))
+                    .invoke(client, true);
+        } else if ("pooled".equals(decoding)) {
+            lookup.findVirtual(clientClass, "setUnitPool", MethodType.methodType(void.class, UnitPool.class))
+                    .invoke(client, new UnitPool(false));
+        }
+
+        if (capture.isJournal()) {
+            lookup.findVirtual(clientClass, "readTeamSize", MethodType.methodType(int.class)).invoke(client);
+            lookup.findVirtual(clientClass, "readGameContext", MethodType.methodType(Game.class))
+                    .invoke(client);
+        }
+
+        readNextPlayerContext();
+
+        moves = new Move[2];
+        for (int moveIndex = 0; moveIndex < moves.length; ++moveIndex) {
+            Move move = new Move();
+            move.setEnginePower(0.75D);
+            move.setWheelTurn(-0.3D * moveIndex);
+            move.setBrake(moveIndex == 1);
+            moves[moveIndex] = move;
+        }
+    }
+
+    /**
+     * Decodes the next player context and reads the cars of its world, so lazy decoding pays for the section a
+     * typical strategy always looks at.
+     */
+    @Benchmark
+    public void decodePlayerContext(Blackhole blackhole) throws Throwable {
+        PlayerContext playerContext = readNextPlayerContext();
+        World world = playerContext.getWorld();
+
+        blackhole.consume(playerContext.getCars());
+        blackhole.consume(world.getTick());
+
+        for (Car car : world.getCars()) {
+            blackhole.consume(car.getX());
+        }
+    }
+
+    @Benchmark
+    public void encodeMoves() throws Throwable {
+        writeMoves.invokeExact(client, moves);
+    }
+
+    private PlayerContext readNextPlayerContext() throws Throwable {
+        PlayerContext playerContext = (PlayerContext) readPlayerContext.invokeExact(client);
+        if (playerContext == null) {
+            throw new IOException("Capture contains no player context.");
+        }
+
+        return playerContext;
+    }
+
+    private static final class NullOutputStream extends OutputStream {
+        @Override
+        public void write(int value) {
+            // No operation.
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            // No operation.
+        }
+    }
+}
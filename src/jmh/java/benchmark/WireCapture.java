@@ -0,0 +1,287 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Server-to-runner bytes in the wire format, split into a prefix that a client reads once and a run of player
+ * context messages that can be replayed over and over. Captures come either from a journal recorded with
+ * {@code -Drunner.journal=<directory>} or from a synthetic game of a typical size.
+ */
+final class WireCapture {
+    private static final byte PLAYER_CONTEXT = 6;
+    private static final int JOURNAL_HEADER_SIZE_BYTES = 3 * Long.SIZE / Byte.SIZE;
+
+    private static final int SYNTHETIC_TICK_COUNT = 256;
+    private static final int SYNTHETIC_TEAM_SIZE = 2;
+    private static final int SYNTHETIC_PLAYER_COUNT = 2;
+    private static final int SYNTHETIC_PROJECTILE_COUNT = 6;
+    private static final int SYNTHETIC_BONUS_COUNT = 8;
+    private static final int SYNTHETIC_OIL_SLICK_COUNT = 2;
+    private static final int SYNTHETIC_MAP_SIZE = 20;
+
+    private final byte[] prefix;
+    private final byte[] playerContexts;
+    private final boolean journal;
+
+    private WireCapture(byte[] prefix, byte[] playerContexts, boolean journal) {
+        this.prefix = prefix;
+        this.playerContexts = playerContexts;
+        this.journal = journal;
+    }
+
+    /**
+     * @return {@code true} if the prefix starts with the team size and game context messages, {@code false} if it is
+     * just the first player context
+     */
+    boolean isJournal() {
+        return journal;
+    }
+
+    /**
+     * @return a stream with the prefix followed by the player contexts repeated forever
+     */
+    InputStream newInputStream() {
+        return new InputStream() {
+            private byte[] bytes = prefix;
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                byte[] singleByte = new byte[1];
+                return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) {
+                if (position == bytes.length) {
+                    bytes = playerContexts;
+                    position = 0;
+                }
+
+                int readByteCount = StrictMath.min(length, bytes.length - position);
+                System.arraycopy(bytes, position, buffer, offset, readByteCount);
+                position += readByteCount;
+                return readByteCount;
+            }
+        };
+    }
+
+    /**
+     * Loads a journal written by {@code TickJournal}: the prefix ends after the first player context, and the
+     * replayed run stops before the game over message.
+     */
+    static WireCapture fromJournal(File directory) throws IOException {
+        ByteBuffer input = readFile(new File(directory, "input.bin"));
+        ByteBuffer index = readFile(new File(directory, "index.bin"));
+
+        // The header holds the lengths of input.bin, moves.bin and index.bin; the files are padded past them.
+        long inputLength = index.getLong();
+        index.getLong();
+        long indexLength = index.getLong();
+        if (indexLength < JOURNAL_HEADER_SIZE_BYTES) {
+            throw new IOException("Journal '" + directory + "' has not been closed.");
+        }
+
+        input.limit((int) inputLength);
+        index.limit((int) indexLength);
+
+        int messageCount = index.remaining() / (2 * Long.SIZE / Byte.SIZE);
+        long[] inputOffsets = new long[messageCount];
+
+        for (int messageIndex = 0; messageIndex < messageCount; ++messageIndex) {
+            inputOffsets[messageIndex] = index.getLong();
+            index.getLong();
+        }
+
+        int playerContextCount = 0;
+        while (playerContextCount < messageCount
+                && input.get((int) inputOffsets[playerContextCount]) == PLAYER_CONTEXT) {
+            ++playerContextCount;
+        }
+
+        if (playerContextCount < 2) {
+            throw new IOException("Journal '" + directory + "' contains less than two player contexts.");
+        }
+
+        int prefixEnd = (int) inputOffsets[1];
+        int playerContextsEnd = playerContextCount < messageCount
+                ? (int) inputOffsets[playerContextCount]
+                : input.limit();
+
+        byte[] prefix = new byte[prefixEnd];
+        byte[] playerContexts = new byte[playerContextsEnd - prefixEnd];
+        input.get(prefix);
+        input.get(playerContexts);
+
+        return new WireCapture(prefix, playerContexts, true);
+    }
+
+    /**
+     * Builds a game with two teams of {@value #SYNTHETIC_TEAM_SIZE} cars, some projectiles, bonuses and oil slicks
+     * on a {@value #SYNTHETIC_MAP_SIZE}x{@value #SYNTHETIC_MAP_SIZE} map. Units move every tick.
+     */
+    static WireCapture synthetic() {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 22).order(ByteOrder.LITTLE_ENDIAN);
+
+        putPlayerContext(buffer, 0, true);
+        byte[] prefix = toArray(buffer);
+
+        for (int tick = 1; tick <= SYNTHETIC_TICK_COUNT; ++tick) {
+            putPlayerContext(buffer, tick, false);
+        }
+
+        return new WireCapture(prefix, toArray(buffer), false);
+    }
+
+    private static void putPlayerContext(ByteBuffer buffer, int tick, boolean first) {
+        buffer.put(PLAYER_CONTEXT);
+        buffer.put((byte) 1);
+
+        buffer.putInt(SYNTHETIC_TEAM_SIZE);
+        for (int carIndex = 0; carIndex < SYNTHETIC_TEAM_SIZE; ++carIndex) {
+            putCar(buffer, carIndex, tick);
+        }
+
+        buffer.put((byte) 1);
+        buffer.putInt(tick);
+        buffer.putInt(SYNTHETIC_TICK_COUNT + 1);
+        buffer.putInt(SYNTHETIC_TICK_COUNT);
+        buffer.putInt(SYNTHETIC_MAP_SIZE);
+        buffer.putInt(SYNTHETIC_MAP_SIZE);
+
+        buffer.putInt(SYNTHETIC_PLAYER_COUNT);
+        for (int playerIndex = 0; playerIndex < SYNTHETIC_PLAYER_COUNT; ++playerIndex) {
+            buffer.put((byte) 1);
+            buffer.putLong(playerIndex + 1);
+            buffer.put(playerIndex == 0 ? (byte) 1 : (byte) 0);
+            putString(buffer, "Player #" + (playerIndex + 1));
+            buffer.put((byte) 0);
+            buffer.putInt(tick / 100 * playerIndex);
+        }
+
+        buffer.putInt(SYNTHETIC_PLAYER_COUNT * SYNTHETIC_TEAM_SIZE);
+        for (int carIndex = 0; carIndex < SYNTHETIC_PLAYER_COUNT * SYNTHETIC_TEAM_SIZE; ++carIndex) {
+            putCar(buffer, carIndex, tick);
+        }
+
+        buffer.putInt(SYNTHETIC_PROJECTILE_COUNT);
+        for (int projectileIndex = 0; projectileIndex < SYNTHETIC_PROJECTILE_COUNT; ++projectileIndex) {
+            buffer.put((byte) 1);
+            buffer.putLong(1000 + projectileIndex);
+            putUnitFields(buffer, projectileIndex, tick, 35.0D);
+            buffer.putDouble(20.0D);
+            buffer.putLong(100 + projectileIndex % 4);
+            buffer.putLong(1 + projectileIndex % 2);
+            buffer.put((byte) (projectileIndex % 2));
+        }
+
+        buffer.putInt(SYNTHETIC_BONUS_COUNT);
+        for (int bonusIndex = 0; bonusIndex < SYNTHETIC_BONUS_COUNT; ++bonusIndex) {
+            buffer.put((byte) 1);
+            buffer.putLong(2000 + bonusIndex);
+            putUnitFields(buffer, bonusIndex, 0, 0.0D);
+            buffer.putDouble(70.0D);
+            buffer.putDouble(70.0D);
+            buffer.put((byte) (bonusIndex % 5));
+        }
+
+        buffer.putInt(SYNTHETIC_OIL_SLICK_COUNT);
+        for (int oilSlickIndex = 0; oilSlickIndex < SYNTHETIC_OIL_SLICK_COUNT; ++oilSlickIndex) {
+            buffer.put((byte) 1);
+            buffer.putLong(3000 + oilSlickIndex);
+            putUnitFields(buffer, oilSlickIndex, 0, 0.0D);
+            buffer.putDouble(150.0D);
+            buffer.putInt(600 - tick % 600);
+        }
+
+        if (first) {
+            putString(buffer, "default");
+
+            buffer.putInt(SYNTHETIC_MAP_SIZE);
+            for (int x = 0; x < SYNTHETIC_MAP_SIZE; ++x) {
+                buffer.putInt(SYNTHETIC_MAP_SIZE);
+                for (int y = 0; y < SYNTHETIC_MAP_SIZE; ++y) {
+                    buffer.put((byte) ((x + y) % 12));
+                }
+            }
+
+            buffer.putInt(SYNTHETIC_MAP_SIZE);
+            for (int waypointIndex = 0; waypointIndex < SYNTHETIC_MAP_SIZE; ++waypointIndex) {
+                buffer.putInt(2);
+                buffer.putInt(waypointIndex);
+                buffer.putInt(SYNTHETIC_MAP_SIZE - 1 - waypointIndex);
+            }
+
+            buffer.put((byte) 3);
+        }
+    }
+
+    private static void putCar(ByteBuffer buffer, int carIndex, int tick) {
+        buffer.put((byte) 1);
+        buffer.putLong(100 + carIndex);
+        putUnitFields(buffer, carIndex, tick, 12.5D);
+        buffer.putDouble(210.0D);
+        buffer.putDouble(140.0D);
+        buffer.putLong(1 + carIndex / SYNTHETIC_TEAM_SIZE);
+        buffer.putInt(carIndex % SYNTHETIC_TEAM_SIZE);
+        buffer.put(carIndex < SYNTHETIC_TEAM_SIZE ? (byte) 1 : (byte) 0);
+        buffer.put((byte) (carIndex % 2));
+        buffer.putInt(3);
+        buffer.putInt(1);
+        buffer.putInt(1);
+        buffer.putInt(tick % 60);
+        buffer.putInt(tick % 120);
+        buffer.putInt(tick % 90);
+        buffer.putInt(0);
+        buffer.putInt(0);
+        buffer.putDouble(1.0D - tick * 1.0E-4D);
+        buffer.putDouble(0.75D);
+        buffer.putDouble(StrictMath.sin(tick * 0.05D));
+        buffer.putInt(tick / 40 % SYNTHETIC_MAP_SIZE);
+        buffer.putInt(SYNTHETIC_MAP_SIZE - 1 - tick / 40 % SYNTHETIC_MAP_SIZE);
+        buffer.put((byte) 0);
+    }
+
+    private static void putUnitFields(ByteBuffer buffer, int unitIndex, int tick, double speed) {
+        double angle = unitIndex * 0.7D + tick * 0.01D;
+
+        buffer.putDouble(1250.0D);
+        buffer.putDouble(400.0D + unitIndex * 300.0D + tick * speed * StrictMath.cos(angle));
+        buffer.putDouble(600.0D + unitIndex * 200.0D + tick * speed * StrictMath.sin(angle));
+        buffer.putDouble(speed * StrictMath.cos(angle));
+        buffer.putDouble(speed * StrictMath.sin(angle));
+        buffer.putDouble(angle);
+        buffer.putDouble(tick == 0 ? 0.0D : 0.01D);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        buffer.clear();
+        return bytes;
+    }
+
+    private static ByteBuffer readFile(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            byte[] bytes = new byte[(int) randomAccessFile.length()];
+            randomAccessFile.readFully(bytes);
+            return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.GcInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Bytes allocated by the runner thread in each phase of a {@link Runner} tick --- decoding the player context, the
+ * {@link Strategy#move} call of each teammate and encoding the moves --- and the garbage collections that overlapped
+ * the tick. A tick lasts from the arrival of the player context until its moves are written; time spent waiting for
+ * the server is not part of it. The report lists the slowest ticks with their allocation and pauses.
+ * <p>
+ * Allocation is read from {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} of the calling
+ * thread, so strategy calls made on other threads, with parallel teammates or a move budget, are not measured.
+ * Collections are reported by the JVM with millisecond precision after they end and are matched with ticks only when
+ * the report is printed.
+ */
+public final class AllocationMeter implements Closeable {
+    private static final int WORST_TICK_COUNT = 10;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final long threadId = Thread.currentThread().getId();
+    private final long baseNanos;
+    private final long baseUptimeMillis;
+
+    private final Queue<GcPause> gcPauses = new ConcurrentLinkedQueue<>();
+    private final List<NotificationEmitter> gcEmitters = new ArrayList<>();
+    private final NotificationListener gcListener = new NotificationListener() {
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+                        (CompositeData) notification.getUserData()
+                );
+                GcInfo gcInfo = info.getGcInfo();
+                gcPauses.add(new GcPause(info.getGcName(), gcInfo.getStartTime(), gcInfo.getEndTime()));
+            }
+        }
+    };
+
+    private int tickCount;
+    private int[] ticks = new int[INITIAL_CAPACITY];
+    private long[] startNanos = new long[INITIAL_CAPACITY];
+    private long[] endNanos = new long[INITIAL_CAPACITY];
+    private long[] decodeBytes = new long[INITIAL_CAPACITY];
+    private final long[][] strategyBytes;
+    private long[] encodeBytes = new long[INITIAL_CAPACITY];
+
+    private long phaseStartBytes;
+
+    /**
+     * Measures the calling thread from now on.
+     *
+     * @throws UnsupportedOperationException if the JVM can't measure thread allocation
+     */
+    public AllocationMeter(int teamSize) {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            throw new UnsupportedOperationException("Thread allocation can't be measured by this JVM.");
+        }
+
+        this.threadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!this.threadMXBean.isThreadAllocatedMemorySupported()) {
+            throw new UnsupportedOperationException("Thread allocation can't be measured by this JVM.");
+        }
+
+        this.threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        strategyBytes = new long[teamSize][INITIAL_CAPACITY];
+
+        baseNanos = System.nanoTime();
+        baseUptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        for (GarbageCollectorMXBean gcMXBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gcMXBean instanceof NotificationEmitter) {
+                NotificationEmitter gcEmitter = (NotificationEmitter) gcMXBean;
+                gcEmitter.addNotificationListener(gcListener, null, null);
+                gcEmitters.add(gcEmitter);
+            }
+        }
+    }
+
+    /**
+     * Starts a tick and its decoding phase once the player context has arrived.
+     */
+    public void startTick() {
+        if (tickCount == ticks.length) {
+            grow();
+        }
+
+        startNanos[tickCount] = System.nanoTime();
+        phaseStartBytes = getAllocatedBytes();
+    }
+
+    public void endDecode(int tick) {
+        ticks[tickCount] = tick;
+        decodeBytes[tickCount] = endPhase();
+    }
+
+    public void startMove() {
+        phaseStartBytes = getAllocatedBytes();
+    }
+
+    public void endMove(int teammateIndex) {
+        strategyBytes[teammateIndex][tickCount] = endPhase();
+    }
+
+    public void startEncode() {
+        phaseStartBytes = getAllocatedBytes();
+    }
+
+    /**
+     * Ends the encoding phase and the tick.
+     */
+    public void endTick() {
+        encodeBytes[tickCount] = endPhase();
+        endNanos[tickCount] = System.nanoTime();
+        ++tickCount;
+    }
+
+    public void print(PrintStream out, String mapName) {
+        List<GcPause> pauses = new ArrayList<>(gcPauses);
+        long totalBytes = 0L;
+        long totalPauseMillis = 0L;
+
+        for (int tickIndex = 0; tickIndex < tickCount; ++tickIndex) {
+            totalBytes += decodeBytes[tickIndex] + encodeBytes[tickIndex];
+
+            for (long[] teammateBytes : strategyBytes) {
+                totalBytes += teammateBytes[tickIndex];
+            }
+        }
+
+        for (GcPause pause : pauses) {
+            totalPauseMillis += pause.endMillis - pause.startMillis;
+        }
+
+        out.printf(
+                "TickAllocations [map=%s, ticks=%d, allocated=%s, collections=%d, collectionTime=%dms] {%n",
+                mapName, tickCount, formatBytes(totalBytes), pauses.size(), totalPauseMillis
+        );
+
+        for (int tickIndex : getWorstTickIndexes()) {
+            StringBuilder line = new StringBuilder(String.format(
+                    "    tick %d: %.1fus, decode %s", ticks[tickIndex],
+                    (endNanos[tickIndex] - startNanos[tickIndex]) / 1000.0D, formatBytes(decodeBytes[tickIndex])
+            ));
+
+            for (int teammateIndex = 0; teammateIndex < strategyBytes.length; ++teammateIndex) {
+                line.append(", strategy #").append(teammateIndex).append(' ')
+                        .append(formatBytes(strategyBytes[teammateIndex][tickIndex]));
+            }
+
+            line.append(", encode ").append(formatBytes(encodeBytes[tickIndex]));
+
+            double tickStartMillis = toUptimeMillis(startNanos[tickIndex]);
+            double tickEndMillis = toUptimeMillis(endNanos[tickIndex]);
+
+            for (GcPause pause : pauses) {
+                if (pause.startMillis <= tickEndMillis && pause.endMillis + 1L >= tickStartMillis) {
+                    line.append(", ").append(pause.name).append(' ')
+                            .append(pause.endMillis - pause.startMillis).append("ms");
+                }
+            }
+
+            out.println(line);
+        }
+
+        out.println('}');
+    }
+
+    @Override
+    public void close() {
+        for (NotificationEmitter gcEmitter : gcEmitters) {
+            try {
+                gcEmitter.removeNotificationListener(gcListener);
+            } catch (ListenerNotFoundException ignored) {
+                // No operation.
+            }
+        }
+
+        gcEmitters.clear();
+    }
+
+    private long getAllocatedBytes() {
+        return threadMXBean.getThreadAllocatedBytes(threadId);
+    }
+
+    private long endPhase() {
+        return getAllocatedBytes() - phaseStartBytes;
+    }
+
+    private double toUptimeMillis(long nanos) {
+        return baseUptimeMillis + (nanos - baseNanos) / 1.0E6D;
+    }
+
+    private Integer[] getWorstTickIndexes() {
+        Integer[] tickIndexes = new Integer[tickCount];
+
+        for (int tickIndex = 0; tickIndex < tickCount; ++tickIndex) {
+            tickIndexes[tickIndex] = tickIndex;
+        }
+
+        Arrays.sort(tickIndexes, Collections.reverseOrder(new Comparator<Integer>() {
+            @Override
+            public int compare(Integer tickIndexA, Integer tickIndexB) {
+                return Long.compare(
+                        endNanos[tickIndexA] - startNanos[tickIndexA], endNanos[tickIndexB] - startNanos[tickIndexB]
+                );
+            }
+        }));
+
+        return Arrays.copyOf(tickIndexes, StrictMath.min(WORST_TICK_COUNT, tickCount));
+    }
+
+    private void grow() {
+        int capacity = ticks.length * 2;
+
+        ticks = Arrays.copyOf(ticks, capacity);
+        startNanos = Arrays.copyOf(startNanos, capacity);
+        endNanos = Arrays.copyOf(endNanos, capacity);
+        decodeBytes = Arrays.copyOf(decodeBytes, capacity);
+        encodeBytes = Arrays.copyOf(encodeBytes, capacity);
+
+        for (int teammateIndex = 0; teammateIndex < strategyBytes.length; ++teammateIndex) {
+            strategyBytes[teammateIndex] = Arrays.copyOf(strategyBytes[teammateIndex], capacity);
+        }
+    }
+
+    private static String formatBytes(long bytes) {
+        return bytes < 1024L ? bytes + "B" : String.format("%.1fKB", bytes / 1024.0D);
+    }
+
+    private static final class GcPause {
+        private final String name;
+        private final long startMillis;
+        private final long endMillis;
+
+        private GcPause(String name, long startMillis, long endMillis) {
+            this.name = name;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+import model.Car;
+import model.Game;
+import model.World;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a {@link Planner} on a thread of its own that keeps improving a plan between ticks. The runner hands over the
+ * latest world of the car before every {@link Strategy#move} call of a strategy that implements {@link PlannerAware},
+ * and the strategy reads the newest complete plan with {@link #getPlan()} without ever waiting for the planner.
+ * <p>
+ * The planner thread is the only writer: each plan it completes is wrapped in an immutable {@link Plan} with the
+ * next version number and published through an atomic reference, so readers see either the previous plan or the
+ * whole new one. The plan value itself must not be modified after it is returned by the planner.
+ * <p>
+ * The planner goes on reading a world after the runner has moved to the next tick, so the runner refuses to combine
+ * it with a {@link model.UnitPool} or with lazy world decoding.
+ */
+public final class BackgroundPlanner<P> implements Closeable {
+    private final Planner<P> planner;
+    private final AtomicReference<Plan<P>> plan = new AtomicReference<>();
+
+    private volatile Input input;
+    private volatile boolean stopped;
+    private volatile Throwable failure;
+    private Thread thread;
+    private ChromeTrace chromeTrace;
+
+    public BackgroundPlanner(Planner<P> planner) {
+        this.planner = planner;
+    }
+
+    /**
+     * @return newest complete plan, or {@code null} if none has been made yet
+     */
+    public Plan<P> getPlan() {
+        return plan.get();
+    }
+
+    /**
+     * @return what the planner threw, or {@code null}; the planner thread stops after a failure and the last plan
+     * stays available
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Must be called before {@link #start}.
+     */
+    void setChromeTrace(ChromeTrace chromeTrace) {
+        this.chromeTrace = chromeTrace;
+    }
+
+    synchronized void start(String threadName) {
+        if (thread != null) {
+            return;
+        }
+
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                plan();
+            }
+        }, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Replaces the input of the planner with the world of the current tick and wakes the planner thread up.
+     */
+    void update(Car self, World world, Game game) {
+        input = new Input(this, self, world, game);
+        LockSupport.unpark(thread);
+    }
+
+    @Override
+    public synchronized void close() {
+        stopped = true;
+
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void plan() {
+        try {
+            while (!stopped) {
+                Input currentInput = input;
+                if (currentInput == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+
+                Plan<P> previousPlan = plan.get();
+                long startNanos = System.nanoTime();
+                P value = planner.plan(currentInput, previousPlan == null ? null : previousPlan.getValue());
+
+                if (chromeTrace != null) {
+                    chromeTrace.record(
+                            ChromeTrace.BACKGROUND_CATEGORY, "plan", startNanos, currentInput.getWorld().getTick(),
+                            currentInput.getSelf() == null ? -1 : currentInput.getSelf().getTeammateIndex()
+                    );
+                }
+
+                if (value != null) {
+                    plan.set(new Plan<>(
+                            previousPlan == null ? 1L : previousPlan.getVersion() + 1L,
+                            currentInput.getWorld().getTick(), value
+                    ));
+                } else if (!currentInput.isSuperseded()) {
+                    LockSupport.park(this);
+                }
+            }
+        } catch (Throwable e) {
+            failure = e;
+        }
+    }
+
+    public interface Planner<P> {
+        /**
+         * Runs on the planner thread, over and over for the same input while it keeps finding better plans. Should
+         * return early once {@link Input#isSuperseded()} turns {@code true}.
+         *
+         * @param previousPlan value of the newest published plan, possibly made for an earlier tick, or {@code null}
+         * @return a plan better than {@code previousPlan}, or {@code null} if it can't be improved until the next
+         * tick, in which case the planner thread waits for it
+         */
+        P plan(Input input, P previousPlan) throws Exception;
+    }
+
+    public static final class Input {
+        private final BackgroundPlanner<?> backgroundPlanner;
+        private final Car self;
+        private final World world;
+        private final Game game;
+
+        private Input(BackgroundPlanner<?> backgroundPlanner, Car self, World world, Game game) {
+            this.backgroundPlanner = backgroundPlanner;
+            this.self = self;
+            this.world = world;
+            this.game = game;
+        }
+
+        public Car getSelf() {
+            return self;
+        }
+
+        public World getWorld() {
+            return world;
+        }
+
+        public Game getGame() {
+            return game;
+        }
+
+        /**
+         * @return whether the world of a newer tick has arrived or the game is over
+         */
+        public boolean isSuperseded() {
+            return backgroundPlanner.stopped || backgroundPlanner.input != this;
+        }
+    }
+
+    public static final class Plan<P> {
+        private final long version;
+        private final int tick;
+        private final P value;
+
+        private Plan(long version, int tick, P value) {
+            this.version = version;
+            this.tick = tick;
+            this.value = value;
+        }
+
+        /**
+         * @return number of the plan, starting with {@code 1} and growing by one with every published plan
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return tick of the world the plan was made for
+         */
+        public int getTick() {
+            return tick;
+        }
+
+        public P getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Optional interface of a {@link Strategy} that shares data with its teammates. The runner passes the same
+ * {@link TeamBlackboard} to every strategy of the team before the first {@link Strategy#move} call of a game.
+ */
+public interface BlackboardAware {
+    void setTeamBlackboard(TeamBlackboard teamBlackboard);
+}
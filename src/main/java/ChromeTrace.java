@@ -0,0 +1,186 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Timeline of a game in the Chrome trace event format, which {@code chrome://tracing} and Perfetto open: a slice per
+ * tick phase, per {@link Strategy#move} call and per background task, on a track per thread.
+ * <p>
+ * Slices are recorded from any thread into a preallocated ring buffer without locks or allocation, and the newest
+ * {@code capacity} of them are written as JSON once the game is over. Every slot carries a stamp that is cleared
+ * before its fields are written and set afterwards; the writer checks the stamp before and after copying a slot, so a
+ * slice recorded while the file is written is left out rather than written torn. Fields are stored with ordered
+ * writes and read with volatile reads, which keeps these checks valid without locks.
+ */
+public final class ChromeTrace {
+    static final String TICK_CATEGORY = "tick";
+    static final String STRATEGY_CATEGORY = "strategy";
+    static final String BACKGROUND_CATEGORY = "background";
+
+    private final int mask;
+    private final long baseNanos = System.nanoTime();
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    private final AtomicLongArray stamps;
+    private final AtomicReferenceArray<String> categories;
+    private final AtomicReferenceArray<String> names;
+    private final AtomicReferenceArray<Thread> threads;
+    private final AtomicLongArray startNanos;
+    private final AtomicLongArray durationNanos;
+    private final AtomicIntegerArray ticks;
+    private final AtomicIntegerArray teammateIndexes;
+
+    /**
+     * @param capacity number of slices kept, rounded up to a power of two
+     */
+    public ChromeTrace(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Unexpected capacity: " + capacity + '.');
+        }
+
+        if (Integer.bitCount(capacity) != 1) {
+            capacity = Integer.highestOneBit(capacity) << 1;
+        }
+
+        mask = capacity - 1;
+
+        stamps = new AtomicLongArray(capacity);
+        categories = new AtomicReferenceArray<>(capacity);
+        names = new AtomicReferenceArray<>(capacity);
+        threads = new AtomicReferenceArray<>(capacity);
+        startNanos = new AtomicLongArray(capacity);
+        durationNanos = new AtomicLongArray(capacity);
+        ticks = new AtomicIntegerArray(capacity);
+        teammateIndexes = new AtomicIntegerArray(capacity);
+    }
+
+    /**
+     * Records a slice of the current thread from {@code startNanos} until now.
+     *
+     * @param tick          tick of the slice, or {@code -1}
+     * @param teammateIndex car of the slice, or {@code -1}
+     */
+    public void record(String category, String name, long startNanos, int tick, int teammateIndex) {
+        long endNanos = System.nanoTime();
+        long sequence = nextSequence.getAndIncrement();
+        int slot = (int) (sequence & mask);
+
+        stamps.set(slot, 0L);
+        categories.lazySet(slot, category);
+        names.lazySet(slot, name);
+        threads.lazySet(slot, Thread.currentThread());
+        this.startNanos.lazySet(slot, startNanos);
+        durationNanos.lazySet(slot, endNanos - startNanos);
+        ticks.lazySet(slot, tick);
+        teammateIndexes.lazySet(slot, teammateIndex);
+        stamps.lazySet(slot, sequence + 1L);
+    }
+
+    /**
+     * @return number of slices written
+     */
+    public int write(File file) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8
+        ), 1 << 16);
+
+        try {
+            writer.write("{\"displayTimeUnit\":\"ns\",\"traceEvents\":[");
+
+            long endSequence = nextSequence.get();
+            long startSequence = StrictMath.max(0L, endSequence - (mask + 1));
+            Map<Thread, Boolean> seenThreads = new IdentityHashMap<>();
+            int sliceCount = 0;
+
+            for (long sequence = startSequence; sequence < endSequence; ++sequence) {
+                int slot = (int) (sequence & mask);
+                if (stamps.get(slot) != sequence + 1L) {
+                    continue;
+                }
+
+                String category = categories.get(slot);
+                String name = names.get(slot);
+                Thread thread = threads.get(slot);
+                long sliceStartNanos = startNanos.get(slot);
+                long sliceDurationNanos = durationNanos.get(slot);
+                int tick = ticks.get(slot);
+                int teammateIndex = teammateIndexes.get(slot);
+
+                // The slot has been reused while it was copied.
+                if (stamps.get(slot) != sequence + 1L) {
+                    continue;
+                }
+
+                if (seenThreads.put(thread, Boolean.TRUE) == null) {
+                    writer.write(seenThreads.size() == 1 ? "\n" : ",\n");
+                    writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":");
+                    writer.write(Long.toString(thread.getId()));
+                    writer.write(",\"args\":{\"name\":");
+                    writeString(writer, thread.getName());
+                    writer.write("}}");
+                }
+
+                writer.write(",\n{\"name\":");
+                writeString(writer, name);
+                writer.write(",\"cat\":\"");
+                writer.write(category);
+                writer.write(String.format(
+                        Locale.US, "\",\"ph\":\"X\",\"ts\":%.3f,\"dur\":%.3f,\"pid\":1,\"tid\":%d",
+                        (sliceStartNanos - baseNanos) / 1000.0D, sliceDurationNanos / 1000.0D, thread.getId()
+                ));
+
+                if (tick >= 0 || teammateIndex >= 0) {
+                    writer.write(",\"args\":{");
+
+                    if (tick >= 0) {
+                        writer.write("\"tick\":" + tick);
+                    }
+
+                    if (teammateIndex >= 0) {
+                        writer.write((tick >= 0 ? ",\"car\":" : "\"car\":") + teammateIndex);
+                    }
+
+                    writer.write('}');
+                }
+
+                writer.write('}');
+                ++sliceCount;
+            }
+
+            writer.write("\n]}\n");
+            return sliceCount;
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static void writeString(Writer writer, String value) throws IOException {
+        writer.write('"');
+
+        for (int charIndex = 0, length = value.length(); charIndex < length; ++charIndex) {
+            char c = value.charAt(charIndex);
+
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+
+        writer.write('"');
+    }
+}
@@ -0,0 +1,21 @@
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates daemon threads named {@code namePrefix} followed by a counter, so that worker threads of the runner and of
+ * strategies never keep the JVM alive after the game.
+ */
+final class DaemonThreadFactory implements ThreadFactory {
+    private final String namePrefix;
+    private int threadCount;
+
+    DaemonThreadFactory(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public synchronized Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, namePrefix + threadCount++);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * Time budget of one {@link Strategy#move} call, polled cooperatively by strategies that implement
+ * {@link DeadlineAware}. The runner re-arms the same instance before every call it makes to the strategy, and expires
+ * it early when it stops waiting for a late call, so a strategy that is still searching can notice and give up.
+ */
+public final class Deadline {
+    private volatile long deadlineNanos;
+    private volatile boolean abandoned;
+
+    void start(long budgetNanos) {
+        deadlineNanos = System.nanoTime() + budgetNanos;
+        abandoned = false;
+    }
+
+    void abandon() {
+        abandoned = true;
+    }
+
+    public boolean isExpired() {
+        return abandoned || System.nanoTime() - deadlineNanos >= 0L;
+    }
+
+    public long getRemainingNanos() {
+        return abandoned ? 0L : StrictMath.max(0L, deadlineNanos - System.nanoTime());
+    }
+}
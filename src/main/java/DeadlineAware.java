@@ -0,0 +1,14 @@
+/**
+ * Optional interface of a {@link Strategy} that improves its move the longer it runs. When the runner has a move
+ * budget, it passes a {@link Deadline} before the first {@link Strategy#move} call of a game and re-arms it before
+ * every following call; the strategy should poll it and return its best move so far once it has expired.
+ */
+public interface DeadlineAware {
+    void setDeadline(Deadline deadline);
+
+    /**
+     * @return cheap strategy that fills the move of a call that missed its deadline, or {@code null} to repeat the
+     * move sent for the same car on the previous tick
+     */
+    Strategy getFallbackStrategy();
+}
@@ -0,0 +1,211 @@
+import model.Car;
+import model.Game;
+import model.Move;
+import model.World;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs {@link Strategy#move} calls on a worker thread per teammate and waits for each at most the move budget. A call
+ * that misses it is abandoned: its {@link Deadline} expires, its move is thrown away whenever it completes, and the
+ * car gets the move of the fallback strategy or, without one, the move sent on the previous tick. While an abandoned
+ * call is still running, the strategy is not called again and its car keeps getting fallback moves.
+ * <p>
+ * {@link #moveAll} starts the calls of all cars before waiting for any of them, so teammates also run in parallel.
+ * <p>
+ * A late call may go on reading the world of its tick, so the runner refuses to combine this mode with a {@link
+ * model.UnitPool} or with lazy world decoding.
+ */
+final class DeadlineMoveExecutor implements Closeable {
+    private final long budgetNanos;
+    private final Slot[] slots;
+    private long callCount;
+    private long missedDeadlineCount;
+    private ChromeTrace chromeTrace;
+
+    DeadlineMoveExecutor(Strategy[] strategies, long budgetNanos) {
+        this.budgetNanos = budgetNanos;
+        this.slots = new Slot[strategies.length];
+
+        for (int teammateIndex = 0; teammateIndex < strategies.length; ++teammateIndex) {
+            Strategy strategy = strategies[teammateIndex];
+            Slot slot = new Slot(strategy, teammateIndex);
+            slots[teammateIndex] = slot;
+
+            if (strategy instanceof DeadlineAware) {
+                ((DeadlineAware) strategy).setDeadline(slot.deadline);
+                slot.fallbackStrategy = ((DeadlineAware) strategy).getFallbackStrategy();
+            }
+        }
+    }
+
+    void setChromeTrace(ChromeTrace chromeTrace) {
+        this.chromeTrace = chromeTrace;
+    }
+
+    void move(Car self, World world, Game game, Move move) {
+        Slot slot = slots[self.getTeammateIndex()];
+
+        if (submit(slot, self, world, game, move)) {
+            await(slot, self, world, game, move);
+        }
+    }
+
+    void moveAll(Car[] cars, World world, Game game, Move[] moves) {
+        boolean[] submitted = new boolean[cars.length];
+
+        for (int carIndex = 0; carIndex < cars.length; ++carIndex) {
+            Car self = cars[carIndex];
+            submitted[carIndex] = submit(slots[self.getTeammateIndex()], self, world, game, moves[carIndex]);
+        }
+
+        for (int carIndex = 0; carIndex < cars.length; ++carIndex) {
+            if (submitted[carIndex]) {
+                Car self = cars[carIndex];
+                await(slots[self.getTeammateIndex()], self, world, game, moves[carIndex]);
+            }
+        }
+    }
+
+    /**
+     * @return time from the start of the latest call of the teammate until its move was settled
+     */
+    long getMoveNanos(int teammateIndex) {
+        return slots[teammateIndex].moveNanos;
+    }
+
+    /**
+     * Starts the call, or settles the move with a fallback right away if the previous call is still running.
+     *
+     * @return whether the call was started
+     */
+    private boolean submit(final Slot slot, final Car self, final World world, final Game game, Move move) {
+        ++callCount;
+
+        if (slot.pendingCall != null && !slot.pendingCall.isDone()) {
+            ++missedDeadlineCount;
+            slot.moveNanos = 0L;
+            fallback(slot, self, world, game, move);
+            return false;
+        }
+
+        final ChromeTrace chromeTrace = this.chromeTrace;
+        final Move candidateMove = new Move();
+        slot.candidateMove = candidateMove;
+        slot.deadline.start(budgetNanos);
+        slot.startNanos = System.nanoTime();
+        slot.pendingCall = slot.executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                long startNanos = System.nanoTime();
+                Trace.Span span = Trace.beginPhase(
+                        Trace.Phase.STRATEGY_MOVE, world.getTick(), self.getTeammateIndex()
+                );
+                try {
+                    slot.strategy.move(self, world, game, candidateMove);
+                } finally {
+                    span.close();
+                }
+
+                if (chromeTrace != null) {
+                    chromeTrace.record(
+                            ChromeTrace.STRATEGY_CATEGORY, "move", startNanos, world.getTick(),
+                            self.getTeammateIndex()
+                    );
+                }
+
+                return null;
+            }
+        });
+
+        return true;
+    }
+
+    private void await(Slot slot, Car self, World world, Game game, Move move) {
+        try {
+            slot.pendingCall.get(slot.deadline.getRemainingNanos(), TimeUnit.NANOSECONDS);
+            copy(slot.candidateMove, move);
+            copy(move, slot.lastMove);
+        } catch (TimeoutException ignored) {
+            slot.deadline.abandon();
+            ++missedDeadlineCount;
+            fallback(slot, self, world, game, move);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+            slot.deadline.abandon();
+            fallback(slot, self, world, game, move);
+        } catch (ExecutionException e) {
+            throw ParallelMoveExecutor.rethrowCause(e);
+        } finally {
+            slot.candidateMove = null;
+            slot.moveNanos = System.nanoTime() - slot.startNanos;
+        }
+    }
+
+    long getCallCount() {
+        return callCount;
+    }
+
+    long getMissedDeadlineCount() {
+        return missedDeadlineCount;
+    }
+
+    @Override
+    public void close() {
+        for (Slot slot : slots) {
+            slot.deadline.abandon();
+            slot.executor.shutdownNow();
+        }
+    }
+
+    private static void fallback(Slot slot, Car self, World world, Game game, Move move) {
+        if (slot.fallbackStrategy == null) {
+            copy(slot.lastMove, move);
+        } else {
+            slot.fallbackStrategy.move(self, world, game, move);
+        }
+
+        copy(move, slot.lastMove);
+    }
+
+    private static void copy(Move source, Move target) {
+        target.setEnginePower(source.getEnginePower());
+        target.setBrake(source.isBrake());
+        target.setWheelTurn(source.getWheelTurn());
+        target.setThrowProjectile(source.isThrowProjectile());
+        target.setUseNitro(source.isUseNitro());
+        target.setSpillOil(source.isSpillOil());
+    }
+
+    private static final class Slot {
+        private final Strategy strategy;
+        private final ExecutorService executor;
+        private final Deadline deadline = new Deadline();
+        private final Move lastMove = new Move();
+        private Strategy fallbackStrategy;
+        private Future<Void> pendingCall;
+        private Move candidateMove;
+        private long startNanos;
+        private long moveNanos;
+
+        private Slot(Strategy strategy, int teammateIndex) {
+            this.strategy = strategy;
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new DaemonThreadFactory("strategy-" + teammateIndex + '-')
+            );
+
+            // The first call must not pay for starting the thread.
+            executor.prestartAllCoreThreads();
+            this.executor = executor;
+        }
+    }
+}
@@ -0,0 +1,719 @@
+import model.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compact player context encoding of protocol version {@value #PROTOCOL_VERSION}, negotiated by
+ * {@link RemoteProcessClient#writeProtocolVersion()} when both ends are ours (a {@link ReplayServer} or a local
+ * simulator). Each side keeps the state of the previous tick, so one instance encodes or decodes exactly one
+ * connection, in order.
+ * <p>
+ * A player context message is the message type, the presence flag, the payload length as an {@code int} and the
+ * payload. The payload starts with a flags byte, followed by the player's cars as a unit table. When the world is
+ * present, it goes on with the static world data (only when it differs from what was sent before), the tick as a
+ * delta and the player, car, projectile, bonus and oil slick tables.
+ * <p>
+ * A unit table lists the ids of units that disappeared, then the units that appeared or changed: the id, the name
+ * for a new player, a mask of changed fields and a zigzag varint delta for each of them. Doubles are quantized to
+ * {@link #QUANTUM} before the deltas are taken, so decoded values may differ from the server ones by half of it.
+ * Units that did not change are not sent at all; decoded arrays keep units in order of their first appearance and
+ * never contain {@code null}.
+ */
+final class DeltaCodec {
+    static final int PROTOCOL_VERSION = 2;
+
+    private static final double QUANTUM = 1.0D / (1 << 20);
+
+    private static final int WORLD_PRESENT_FLAG = 1;
+    private static final int STATIC_DATA_FLAG = 1 << 1;
+
+    private static final TileType[] TILE_TYPES = TileType.values();
+    private static final CarType[] CAR_TYPES = CarType.values();
+    private static final ProjectileType[] PROJECTILE_TYPES = ProjectileType.values();
+    private static final BonusType[] BONUS_TYPES = BonusType.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final UnitTable<Car> myCars = new UnitTable<>(new CarLayout());
+    private final UnitTable<Player> players = new UnitTable<>(new PlayerLayout());
+    private final UnitTable<Car> cars = new UnitTable<>(new CarLayout());
+    private final UnitTable<Projectile> projectiles = new UnitTable<>(new ProjectileLayout());
+    private final UnitTable<Bonus> bonuses = new UnitTable<>(new BonusLayout());
+    private final UnitTable<OilSlick> oilSlicks = new UnitTable<>(new OilSlickLayout());
+
+    private boolean staticDataKnown;
+    private int tick;
+    private int tickCount;
+    private int lastTickIndex;
+    private int width;
+    private int height;
+    private String mapName;
+    private TileType[][] tilesXY;
+    private int[][] waypoints;
+    private Direction startingDirection;
+
+    /**
+     * Appends the payload of {@code playerContext} to {@code buffer}.
+     *
+     * @throws java.nio.BufferOverflowException if {@code buffer} is too small for the payload
+     */
+    void encode(PlayerContext playerContext, ByteBuffer buffer) {
+        World world = playerContext.getWorld();
+        boolean staticDataChanged = world != null && (!staticDataKnown
+                || world.getTickCount() != tickCount || world.getLastTickIndex() != lastTickIndex
+                || world.getWidth() != width || world.getHeight() != height
+                || !equals(world.getMapName(), mapName));
+
+        buffer.put((byte) ((world == null ? 0 : WORLD_PRESENT_FLAG) | (staticDataChanged ? STATIC_DATA_FLAG : 0)));
+        myCars.encode(playerContext.getCars(), buffer);
+
+        if (world == null) {
+            return;
+        }
+
+        if (staticDataChanged) {
+            staticDataKnown = true;
+            putVarInt(buffer, tickCount = world.getTickCount());
+            putVarInt(buffer, lastTickIndex = world.getLastTickIndex());
+            putVarInt(buffer, width = world.getWidth());
+            putVarInt(buffer, height = world.getHeight());
+            putString(buffer, mapName = world.getMapName());
+            putTilesXY(buffer, tilesXY = world.getTilesXY());
+            putWaypoints(buffer, waypoints = world.getWaypoints());
+            putEnum(buffer, startingDirection = world.getStartingDirection());
+        }
+
+        putZigZagLong(buffer, world.getTick() - tick);
+        tick = world.getTick();
+
+        players.encode(world.getPlayers(), buffer);
+        cars.encode(world.getCars(), buffer);
+        projectiles.encode(world.getProjectiles(), buffer);
+        bonuses.encode(world.getBonuses(), buffer);
+        oilSlicks.encode(world.getOilSlicks(), buffer);
+    }
+
+    /**
+     * Reads one payload from {@code buffer}. Cars, projectiles, bonuses and oil slicks come from {@code unitPool}
+     * when it is not {@code null}; otherwise units that did not change are shared with the previous tick.
+     */
+    PlayerContext decode(ByteBuffer buffer, UnitPool unitPool) {
+        int flags = buffer.get();
+        Car[] myCars = this.myCars.decode(buffer, unitPool);
+
+        if ((flags & WORLD_PRESENT_FLAG) == 0) {
+            return new PlayerContext(myCars, null);
+        }
+
+        if ((flags & STATIC_DATA_FLAG) != 0) {
+            staticDataKnown = true;
+            tickCount = getVarInt(buffer);
+            lastTickIndex = getVarInt(buffer);
+            width = getVarInt(buffer);
+            height = getVarInt(buffer);
+            mapName = getString(buffer);
+            tilesXY = getTilesXY(buffer);
+            waypoints = getWaypoints(buffer);
+            startingDirection = getEnum(buffer, DIRECTIONS);
+        } else if (!staticDataKnown) {
+            throw new IllegalStateException("Received a delta world before any static world data.");
+        }
+
+        tick += (int) getZigZagLong(buffer);
+
+        return new PlayerContext(myCars, new World(
+                tick, tickCount, lastTickIndex, width, height, players.decode(buffer, unitPool),
+                cars.decode(buffer, unitPool), projectiles.decode(buffer, unitPool), bonuses.decode(buffer, unitPool),
+                oilSlicks.decode(buffer, unitPool), mapName, tilesXY, waypoints, startingDirection
+        ));
+    }
+
+    private static boolean equals(String stringA, String stringB) {
+        return stringA == null ? stringB == null : stringA.equals(stringB);
+    }
+
+    private static long quantize(double value) {
+        return StrictMath.round(value / QUANTUM);
+    }
+
+    private static double dequantize(long value) {
+        return value * QUANTUM;
+    }
+
+    private static long toLong(boolean value) {
+        return value ? 1L : 0L;
+    }
+
+    private static long toLong(Enum value) {
+        return value == null ? -1L : value.ordinal();
+    }
+
+    private static <E extends Enum> E toEnum(long ordinal, E[] values) {
+        return ordinal < 0L ? null : values[(int) ordinal];
+    }
+
+    private static void putTilesXY(ByteBuffer buffer, TileType[][] tilesXY) {
+        putLength(buffer, tilesXY == null ? -1 : tilesXY.length);
+
+        if (tilesXY != null) {
+            for (TileType[] tilesY : tilesXY) {
+                putLength(buffer, tilesY == null ? -1 : tilesY.length);
+
+                if (tilesY != null) {
+                    for (TileType tile : tilesY) {
+                        putEnum(buffer, tile);
+                    }
+                }
+            }
+        }
+    }
+
+    private static TileType[][] getTilesXY(ByteBuffer buffer) {
+        int width = getLength(buffer);
+        if (width < 0) {
+            return null;
+        }
+
+        TileType[][] tilesXY = new TileType[width][];
+
+        for (int x = 0; x < width; ++x) {
+            int height = getLength(buffer);
+            if (height < 0) {
+                continue;
+            }
+
+            tilesXY[x] = new TileType[height];
+
+            for (int y = 0; y < height; ++y) {
+                tilesXY[x][y] = getEnum(buffer, TILE_TYPES);
+            }
+        }
+
+        return tilesXY;
+    }
+
+    private static void putWaypoints(ByteBuffer buffer, int[][] waypoints) {
+        putLength(buffer, waypoints == null ? -1 : waypoints.length);
+
+        if (waypoints != null) {
+            for (int[] waypoint : waypoints) {
+                putLength(buffer, waypoint == null ? -1 : waypoint.length);
+
+                if (waypoint != null) {
+                    for (int coordinate : waypoint) {
+                        putZigZagLong(buffer, coordinate);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int[][] getWaypoints(ByteBuffer buffer) {
+        int waypointCount = getLength(buffer);
+        if (waypointCount < 0) {
+            return null;
+        }
+
+        int[][] waypoints = new int[waypointCount][];
+
+        for (int waypointIndex = 0; waypointIndex < waypointCount; ++waypointIndex) {
+            int coordinateCount = getLength(buffer);
+            if (coordinateCount < 0) {
+                continue;
+            }
+
+            waypoints[waypointIndex] = new int[coordinateCount];
+
+            for (int coordinateIndex = 0; coordinateIndex < coordinateCount; ++coordinateIndex) {
+                waypoints[waypointIndex][coordinateIndex] = (int) getZigZagLong(buffer);
+            }
+        }
+
+        return waypoints;
+    }
+
+    private static void putLength(ByteBuffer buffer, int length) {
+        putVarInt(buffer, length + 1);
+    }
+
+    private static int getLength(ByteBuffer buffer) {
+        return getVarInt(buffer) - 1;
+    }
+
+    private static void putEnum(ByteBuffer buffer, Enum value) {
+        putVarInt(buffer, value == null ? 0 : value.ordinal() + 1);
+    }
+
+    private static <E extends Enum> E getEnum(ByteBuffer buffer, E[] values) {
+        int ordinal = getVarInt(buffer) - 1;
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            putVarInt(buffer, 0);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarInt(buffer, bytes.length + 1);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = getVarInt(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putVarInt(ByteBuffer buffer, int value) {
+        putVarLong(buffer, value & 0xFFFFFFFFL);
+    }
+
+    private static int getVarInt(ByteBuffer buffer) {
+        return (int) getVarLong(buffer);
+    }
+
+    private static void putZigZagLong(ByteBuffer buffer, long value) {
+        putVarLong(buffer, (value << 1) ^ (value >> 63));
+    }
+
+    private static long getZigZagLong(ByteBuffer buffer) {
+        long value = getVarLong(buffer);
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0L) {
+            buffer.put((byte) (value & 0x7FL | 0x80L));
+            value >>>= 7;
+        }
+
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long value = 0L;
+
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte nextByte = buffer.get();
+            value |= (nextByte & 0x7FL) << shift;
+
+            if (nextByte >= 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("Malformed varint.");
+    }
+
+    /**
+     * Last known state of every live unit of one kind, kept identical on both ends of the connection.
+     */
+    private static final class UnitTable<U> {
+        private static final int MAX_VAR_LONG_SIZE_BYTES = 10;
+
+        private final UnitLayout<U> layout;
+        private final Map<Long, Entry<U>> entries = new LinkedHashMap<>();
+        private final long[] fields;
+        private ByteBuffer records = ByteBuffer.allocate(1 << 12);
+        private int generation;
+
+        private UnitTable(UnitLayout<U> layout) {
+            this.layout = layout;
+            this.fields = new long[layout.fieldCount];
+        }
+
+        private void encode(U[] units, ByteBuffer buffer) {
+            ++generation;
+            records.clear();
+            int recordCount = 0;
+
+            for (U unit : units) {
+                if (unit == null) {
+                    continue;
+                }
+
+                long id = layout.getId(unit);
+                Entry<U> entry = entries.get(id);
+                boolean added = entry == null;
+
+                if (added) {
+                    entry = new Entry<>(layout.fieldCount);
+                    entries.put(id, entry);
+                }
+
+                entry.generation = generation;
+                layout.getFields(unit, fields);
+
+                long mask = 0L;
+                for (int fieldIndex = 0; fieldIndex < layout.fieldCount; ++fieldIndex) {
+                    if (fields[fieldIndex] != entry.fields[fieldIndex]) {
+                        mask |= 1L << fieldIndex;
+                    }
+                }
+
+                if (!added && mask == 0L) {
+                    continue;
+                }
+
+                String name = added ? layout.getName(unit) : null;
+                ensureRecordCapacity((2 + Long.bitCount(mask)) * MAX_VAR_LONG_SIZE_BYTES
+                        + (name == null ? MAX_VAR_LONG_SIZE_BYTES : name.length() * 3 + MAX_VAR_LONG_SIZE_BYTES));
+
+                putVarLong(records, id);
+                if (added) {
+                    putString(records, name);
+                }
+                putVarLong(records, mask);
+
+                for (long bits = mask; bits != 0L; bits &= bits - 1L) {
+                    int fieldIndex = Long.numberOfTrailingZeros(bits);
+                    putZigZagLong(records, fields[fieldIndex] - entry.fields[fieldIndex]);
+                    entry.fields[fieldIndex] = fields[fieldIndex];
+                }
+
+                ++recordCount;
+            }
+
+            int removedCount = 0;
+            for (Entry<U> entry : entries.values()) {
+                if (entry.generation != generation) {
+                    ++removedCount;
+                }
+            }
+
+            putVarInt(buffer, removedCount);
+
+            for (Iterator<Map.Entry<Long, Entry<U>>> iterator = entries.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<Long, Entry<U>> idAndEntry = iterator.next();
+
+                if (idAndEntry.getValue().generation != generation) {
+                    putVarLong(buffer, idAndEntry.getKey());
+                    iterator.remove();
+                }
+            }
+
+            putVarInt(buffer, recordCount);
+            records.flip();
+            buffer.put(records);
+        }
+
+        private U[] decode(ByteBuffer buffer, UnitPool unitPool) {
+            ++generation;
+
+            for (int removedCount = getVarInt(buffer); removedCount > 0; --removedCount) {
+                entries.remove(getVarLong(buffer));
+            }
+
+            for (int recordCount = getVarInt(buffer); recordCount > 0; --recordCount) {
+                long id = getVarLong(buffer);
+                Entry<U> entry = entries.get(id);
+
+                if (entry == null) {
+                    entry = new Entry<>(layout.fieldCount);
+                    entry.name = getString(buffer);
+                    entries.put(id, entry);
+                }
+
+                entry.generation = generation;
+
+                for (long bits = getVarLong(buffer); bits != 0L; bits &= bits - 1L) {
+                    entry.fields[Long.numberOfTrailingZeros(bits)] += getZigZagLong(buffer);
+                }
+            }
+
+            U[] units = layout.newArray(entries.size());
+            int unitIndex = 0;
+
+            for (Map.Entry<Long, Entry<U>> idAndEntry : entries.entrySet()) {
+                Entry<U> entry = idAndEntry.getValue();
+
+                if (entry.unit == null || entry.generation == generation || unitPool != null) {
+                    entry.unit = layout.newUnit(idAndEntry.getKey(), entry.fields, entry.name, unitPool);
+                }
+
+                units[unitIndex++] = entry.unit;
+            }
+
+            return units;
+        }
+
+        private void ensureRecordCapacity(int byteCount) {
+            if (records.remaining() < byteCount) {
+                ByteBuffer newRecords = ByteBuffer.allocate(StrictMath.max(2 * records.capacity(),
+                        records.position() + byteCount));
+                records.flip();
+                newRecords.put(records);
+                records = newRecords;
+            }
+        }
+    }
+
+    private static final class Entry<U> {
+        private final long[] fields;
+        private String name;
+        private U unit;
+        private int generation;
+
+        private Entry(int fieldCount) {
+            this.fields = new long[fieldCount];
+        }
+    }
+
+    /**
+     * Maps units of one kind to and from at most 64 integer fields, the id excluded.
+     */
+    private abstract static class UnitLayout<U> {
+        private final int fieldCount;
+
+        private UnitLayout(int fieldCount) {
+            this.fieldCount = fieldCount;
+        }
+
+        abstract long getId(U unit);
+
+        abstract void getFields(U unit, long[] fields);
+
+        abstract U newUnit(long id, long[] fields, String name, UnitPool unitPool);
+
+        abstract U[] newArray(int length);
+
+        String getName(U unit) {
+            return null;
+        }
+    }
+
+    private static final class PlayerLayout extends UnitLayout<Player> {
+        private PlayerLayout() {
+            super(3);
+        }
+
+        @Override
+        long getId(Player player) {
+            return player.getId();
+        }
+
+        @Override
+        void getFields(Player player, long[] fields) {
+            fields[0] = toLong(player.isMe());
+            fields[1] = toLong(player.isStrategyCrashed());
+            fields[2] = player.getScore();
+        }
+
+        @Override
+        Player newUnit(long id, long[] fields, String name, UnitPool unitPool) {
+            return new Player(id, fields[0] != 0L, name, fields[1] != 0L, (int) fields[2]);
+        }
+
+        @Override
+        Player[] newArray(int length) {
+            return new Player[length];
+        }
+
+        @Override
+        String getName(Player player) {
+            return player.getName();
+        }
+    }
+
+    private abstract static class BaseUnitLayout<U extends Unit> extends UnitLayout<U> {
+        private static final int UNIT_FIELD_COUNT = 7;
+
+        private BaseUnitLayout(int ownFieldCount) {
+            super(UNIT_FIELD_COUNT + ownFieldCount);
+        }
+
+        @Override
+        final long getId(U unit) {
+            return unit.getId();
+        }
+
+        @Override
+        final void getFields(U unit, long[] fields) {
+            fields[0] = quantize(unit.getMass());
+            fields[1] = quantize(unit.getX());
+            fields[2] = quantize(unit.getY());
+            fields[3] = quantize(unit.getSpeedX());
+            fields[4] = quantize(unit.getSpeedY());
+            fields[5] = quantize(unit.getAngle());
+            fields[6] = quantize(unit.getAngularSpeed());
+            getOwnFields(unit, fields, UNIT_FIELD_COUNT);
+        }
+
+        abstract void getOwnFields(U unit, long[] fields, int offset);
+    }
+
+    private static final class CarLayout extends BaseUnitLayout<Car> {
+        private CarLayout() {
+            super(20);
+        }
+
+        @Override
+        void getOwnFields(Car car, long[] fields, int offset) {
+            fields[offset] = quantize(car.getWidth());
+            fields[offset + 1] = quantize(car.getHeight());
+            fields[offset + 2] = car.getPlayerId();
+            fields[offset + 3] = car.getTeammateIndex();
+            fields[offset + 4] = toLong(car.isTeammate());
+            fields[offset + 5] = toLong(car.getType());
+            fields[offset + 6] = car.getProjectileCount();
+            fields[offset + 7] = car.getNitroChargeCount();
+            fields[offset + 8] = car.getOilCanisterCount();
+            fields[offset + 9] = car.getRemainingProjectileCooldownTicks();
+            fields[offset + 10] = car.getRemainingNitroCooldownTicks();
+            fields[offset + 11] = car.getRemainingOilCooldownTicks();
+            fields[offset + 12] = car.getRemainingNitroTicks();
+            fields[offset + 13] = car.getRemainingOiledTicks();
+            fields[offset + 14] = quantize(car.getDurability());
+            fields[offset + 15] = quantize(car.getEnginePower());
+            fields[offset + 16] = quantize(car.getWheelTurn());
+            fields[offset + 17] = car.getNextWaypointX();
+            fields[offset + 18] = car.getNextWaypointY();
+            fields[offset + 19] = toLong(car.isFinishedTrack());
+        }
+
+        @Override
+        Car newUnit(long id, long[] fields, String name, UnitPool unitPool) {
+            if (unitPool == null) {
+                return new Car(
+                        id, dequantize(fields[0]), dequantize(fields[1]), dequantize(fields[2]),
+                        dequantize(fields[3]), dequantize(fields[4]), dequantize(fields[5]), dequantize(fields[6]),
+                        dequantize(fields[7]), dequantize(fields[8]), fields[9], (int) fields[10], fields[11] != 0L,
+                        toEnum(fields[12], CAR_TYPES), (int) fields[13], (int) fields[14], (int) fields[15],
+                        (int) fields[16], (int) fields[17], (int) fields[18], (int) fields[19], (int) fields[20],
+                        dequantize(fields[21]), dequantize(fields[22]), dequantize(fields[23]), (int) fields[24],
+                        (int) fields[25], fields[26] != 0L
+                );
+            }
+
+            return unitPool.obtainCar(
+                    id, dequantize(fields[0]), dequantize(fields[1]), dequantize(fields[2]),
+                    dequantize(fields[3]), dequantize(fields[4]), dequantize(fields[5]), dequantize(fields[6]),
+                    dequantize(fields[7]), dequantize(fields[8]), fields[9], (int) fields[10], fields[11] != 0L,
+                    toEnum(fields[12], CAR_TYPES), (int) fields[13], (int) fields[14], (int) fields[15],
+                    (int) fields[16], (int) fields[17], (int) fields[18], (int) fields[19], (int) fields[20],
+                    dequantize(fields[21]), dequantize(fields[22]), dequantize(fields[23]), (int) fields[24],
+                    (int) fields[25], fields[26] != 0L
+            );
+        }
+
+        @Override
+        Car[] newArray(int length) {
+            return new Car[length];
+        }
+    }
+
+    private static final class ProjectileLayout extends BaseUnitLayout<Projectile> {
+        private ProjectileLayout() {
+            super(4);
+        }
+
+        @Override
+        void getOwnFields(Projectile projectile, long[] fields, int offset) {
+            fields[offset] = quantize(projectile.getRadius());
+            fields[offset + 1] = projectile.getCarId();
+            fields[offset + 2] = projectile.getPlayerId();
+            fields[offset + 3] = toLong(projectile.getType());
+        }
+
+        @Override
+        Projectile newUnit(long id, long[] fields, String name, UnitPool unitPool) {
+            if (unitPool == null) {
+                return new Projectile(
+                        id, dequantize(fields[0]), dequantize(fields[1]), dequantize(fields[2]),
+                        dequantize(fields[3]), dequantize(fields[4]), dequantize(fields[5]), dequantize(fields[6]),
+                        dequantize(fields[7]), fields[8], fields[9], toEnum(fields[10], PROJECTILE_TYPES)
+                );
+            }
+
+            return unitPool.obtainProjectile(
+                    id, dequantize(fields[0]), dequantize(fields[1]), dequantize(fields[2]),
+                    dequantize(fields[3]), dequantize(fields[4]), dequantize(fields[5]), dequantize(fields[6]),
+                    dequantize(fields[7]), fields[8], fields[9], toEnum(fields[10], PROJECTILE_TYPES)
+            );
+        }
+
+        @Override
+        Projectile[] newArray(int length) {
+            return new Projectile[length];
+        }
+    }
+
+    private static final class BonusLayout extends BaseUnitLayout<Bonus> {
+        private BonusLayout() {
+            super(3);
+        }
+
+        @Override
+        void getOwnFields(Bonus bonus, long[] fields, int offset) {
+            fields[offset] = quantize(bonus.getWidth());
+            fields[offset + 1] = quantize(bonus.getHeight());
+            fields[offset + 2] = toLong(bonus.getType());
+        }
+
+        @Override
+        Bonus newUnit(long id, long[] fields, String name, UnitPool unitPool) {
+            if (unitPool == null) {
+                return new Bonus(
+                        id, dequantize(fields[0]), dequantize(fields[1]), dequantize(fields[2]),
+                        dequantize(fields[3]), dequantize(fields[4]), dequantize(fields[5]), dequantize(fields[6]),
+                        dequantize(fields[7]), dequantize(fields[8]), toEnum(fields[9], BONUS_TYPES)
+                );
+            }
+
+            return unitPool.obtainBonus(
+                    id, dequantize(fields[0]), dequantize(fields[1]), dequantize(fields[2]),
+                    dequantize(fields[3]), dequantize(fields[4]), dequantize(fields[5]), dequantize(fields[6]),
+                    dequantize(fields[7]), dequantize(fields[8]), toEnum(fields[9], BONUS_TYPES)
+            );
+        }
+
+        @Override
+        Bonus[] newArray(int length) {
+            return new Bonus[length];
+        }
+    }
+
+    private static final class OilSlickLayout extends BaseUnitLayout<OilSlick> {
+        private OilSlickLayout() {
+            super(2);
+        }
+
+        @Override
+        void getOwnFields(OilSlick oilSlick, long[] fields, int offset) {
+            fields[offset] = quantize(oilSlick.getRadius());
+            fields[offset + 1] = oilSlick.getRemainingLifetime();
+        }
+
+        @Override
+        OilSlick newUnit(long id, long[] fields, String name, UnitPool unitPool) {
+            if (unitPool == null) {
+                return new OilSlick(
+                        id, dequantize(fields[0]), dequantize(fields[1]), dequantize(fields[2]),
+                        dequantize(fields[3]), dequantize(fields[4]), dequantize(fields[5]), dequantize(fields[6]),
+                        dequantize(fields[7]), (int) fields[8]
+                );
+            }
+
+            return unitPool.obtainOilSlick(
+                    id, dequantize(fields[0]), dequantize(fields[1]), dequantize(fields[2]),
+                    dequantize(fields[3]), dequantize(fields[4]), dequantize(fields[5]), dequantize(fields[6]),
+                    dequantize(fields[7]), (int) fields[8]
+            );
+        }
+
+        @Override
+        OilSlick[] newArray(int length) {
+            return new OilSlick[length];
+        }
+    }
+}
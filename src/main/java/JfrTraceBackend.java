@@ -0,0 +1,143 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * {@link Trace} backend on top of Java Flight Recorder. It needs Java 11 or newer and is therefore only loaded
+ * reflectively. A recorder listener tracks the running recordings, so that spans cost a volatile read while there is
+ * none; whether an event is actually committed is still decided by the settings of the recording.
+ */
+final class JfrTraceBackend implements Trace.Backend {
+    private final Set<Recording> runningRecordings = Collections.newSetFromMap(
+            new IdentityHashMap<Recording, Boolean>()
+    );
+    private volatile boolean recording;
+
+    JfrTraceBackend() {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                for (Recording recording : recorder.getRecordings()) {
+                    recordingStateChanged(recording);
+                }
+            }
+
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                synchronized (runningRecordings) {
+                    if (recording.getState() == RecordingState.RUNNING) {
+                        runningRecordings.add(recording);
+                    } else {
+                        runningRecordings.remove(recording);
+                    }
+
+                    JfrTraceBackend.this.recording = !runningRecordings.isEmpty();
+                }
+            }
+        });
+    }
+
+    @Override
+    public boolean isRecording() {
+        return recording;
+    }
+
+    @Override
+    public Trace.Span beginStep(String name) {
+        StrategyStepEvent event = new StrategyStepEvent();
+        event.name = name;
+        return new EventSpan(event);
+    }
+
+    @Override
+    public Trace.Span beginPhase(Trace.Phase phase, int tick, int teammateIndex) {
+        TickPhaseEvent event;
+
+        switch (phase) {
+            case SOCKET_WAIT:
+                event = new SocketWaitEvent();
+                break;
+            case DECODE:
+                event = new DecodeEvent();
+                break;
+            case STRATEGY_MOVE:
+                event = new StrategyMoveEvent();
+                break;
+            case WRITE_MOVES:
+                event = new WriteMovesEvent();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported phase: " + phase + '.');
+        }
+
+        event.tick = tick;
+        event.teammateIndex = teammateIndex;
+        return new EventSpan(event);
+    }
+
+    private static final class EventSpan implements Trace.Span {
+        private final Event event;
+
+        private EventSpan(Event event) {
+            this.event = event;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            event.end();
+
+            if (event.shouldCommit()) {
+                event.commit();
+            }
+        }
+    }
+
+    @Category({"CGDK", "Tick"})
+    private abstract static class TickPhaseEvent extends Event {
+        @Label("Tick")
+        int tick;
+
+        @Label("Teammate Index")
+        int teammateIndex;
+    }
+
+    @Name("cgdk.SocketWait")
+    @Label("Socket Wait")
+    @Description("Waiting for the next player context from the server.")
+    private static final class SocketWaitEvent extends TickPhaseEvent {
+    }
+
+    @Name("cgdk.Decode")
+    @Label("Decode Player Context")
+    private static final class DecodeEvent extends TickPhaseEvent {
+    }
+
+    @Name("cgdk.StrategyMove")
+    @Label("Strategy Move")
+    private static final class StrategyMoveEvent extends TickPhaseEvent {
+    }
+
+    @Name("cgdk.WriteMoves")
+    @Label("Write Moves")
+    private static final class WriteMovesEvent extends TickPhaseEvent {
+    }
+
+    @Name("cgdk.StrategyStep")
+    @Label("Strategy Step")
+    @Category({"CGDK", "Strategy"})
+    private static final class StrategyStepEvent extends Event {
+        @Label("Name")
+        String name;
+    }
+}
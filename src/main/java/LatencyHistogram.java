@@ -0,0 +1,104 @@
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket histogram of non-negative durations in nanoseconds. Values below {@value #SUB_BUCKET_COUNT} get a
+ * bucket each; larger values are bucketed by their highest set bit and the {@value #SUB_BUCKET_BITS} bits after it,
+ * which bounds the relative error of a percentile by about 3%. Recording is a few arithmetic operations on a
+ * preallocated array and is meant to be called by a single thread.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    public void record(long nanos) {
+        if (nanos < 0L) {
+            nanos = 0L;
+        }
+
+        ++counts[getBucketIndex(nanos)];
+        ++count;
+        totalNanos += nanos;
+
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    /**
+     * @return upper bound of the bucket holding the value of rank {@code ceil(quantile * count)}, capped at the
+     * maximum, or {@code 0} if nothing was recorded
+     */
+    public long getPercentileNanos(double quantile) {
+        if (count == 0L) {
+            return 0L;
+        }
+
+        long rank = StrictMath.max(1L, (long) StrictMath.ceil(quantile * count));
+        long seenCount = 0L;
+
+        for (int bucketIndex = 0; bucketIndex < BUCKET_COUNT; ++bucketIndex) {
+            seenCount += counts[bucketIndex];
+
+            if (seenCount >= rank) {
+                return StrictMath.min(getBucketUpperBound(bucketIndex), maxNanos);
+            }
+        }
+
+        return maxNanos;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0L);
+        count = 0L;
+        totalNanos = 0L;
+        maxNanos = 0L;
+    }
+
+    /**
+     * @return {@code p50}, {@code p99} and {@code max} in microseconds
+     */
+    @Override
+    public String toString() {
+        return String.format(
+                "count=%d, p50=%.1fus, p99=%.1fus, max=%.1fus", count, getPercentileNanos(0.50D) / 1000.0D,
+                getPercentileNanos(0.99D) / 1000.0D, maxNanos / 1000.0D
+        );
+    }
+
+    private static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    private static long getBucketUpperBound(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKET_COUNT) {
+            return bucketIndex;
+        }
+
+        int shift = (bucketIndex >>> SUB_BUCKET_BITS) - 1;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + (bucketIndex & (SUB_BUCKET_COUNT - 1))) << shift;
+        return lowerBound + (1L << shift) - 1L;
+    }
+}
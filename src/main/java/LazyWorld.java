@@ -0,0 +1,140 @@
+import model.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link World} that keeps the raw unit sections of a tick as received and decodes each unit array on the first call
+ * of the corresponding getter. Getters keep the copying semantics of {@link World}.
+ * <p>
+ * The raw sections are not copied: {@link RemoteProcessClient} reuses their buffer for the tick after the next one,
+ * so a unit array must be decoded within one tick after its own. Arrays decoded by then stay valid. The runner
+ * therefore refuses to hand lazy worlds to anything that reads them in the background: precomputations, background
+ * planners and late calls after a missed move budget.
+ */
+public final class LazyWorld extends World {
+    private static final Player[] EMPTY_PLAYERS = new Player[0];
+    private static final Car[] EMPTY_CARS = new Car[0];
+    private static final Projectile[] EMPTY_PROJECTILES = new Projectile[0];
+    private static final Bonus[] EMPTY_BONUSES = new Bonus[0];
+    private static final OilSlick[] EMPTY_OIL_SLICKS = new OilSlick[0];
+
+    private final ByteBuffer rawUnits;
+    private final int playersOffset;
+    private final int carsOffset;
+    private final int projectilesOffset;
+    private final int bonusesOffset;
+    private final int oilSlicksOffset;
+
+    private Player[] players;
+    private Car[] cars;
+    private Projectile[] projectiles;
+    private Bonus[] bonuses;
+    private OilSlick[] oilSlicks;
+
+    public LazyWorld(
+            int tick, int tickCount, int lastTickIndex, int width, int height, ByteBuffer rawUnits, int playersOffset,
+            int carsOffset, int projectilesOffset, int bonusesOffset, int oilSlicksOffset, String mapName,
+            TileType[][] tilesXY, int[][] waypoints, Direction startingDirection) {
+        super(
+                tick, tickCount, lastTickIndex, width, height, EMPTY_PLAYERS, EMPTY_CARS, EMPTY_PROJECTILES,
+                EMPTY_BONUSES, EMPTY_OIL_SLICKS, mapName, tilesXY, waypoints, startingDirection
+        );
+
+        this.rawUnits = rawUnits;
+        this.playersOffset = playersOffset;
+        this.carsOffset = carsOffset;
+        this.projectilesOffset = projectilesOffset;
+        this.bonusesOffset = bonusesOffset;
+        this.oilSlicksOffset = oilSlicksOffset;
+    }
+
+    @Override
+    public Player[] getPlayers() {
+        Player[] players = decodePlayers();
+        return Arrays.copyOf(players, players.length);
+    }
+
+    @Override
+    public Car[] getCars() {
+        Car[] cars = decodeCars();
+        return Arrays.copyOf(cars, cars.length);
+    }
+
+    @Override
+    public Projectile[] getProjectiles() {
+        Projectile[] projectiles = decodeProjectiles();
+        return Arrays.copyOf(projectiles, projectiles.length);
+    }
+
+    @Override
+    public Bonus[] getBonuses() {
+        Bonus[] bonuses = decodeBonuses();
+        return Arrays.copyOf(bonuses, bonuses.length);
+    }
+
+    @Override
+    public OilSlick[] getOilSlicks() {
+        OilSlick[] oilSlicks = decodeOilSlicks();
+        return Arrays.copyOf(oilSlicks, oilSlicks.length);
+    }
+
+    @Override
+    public Player getMyPlayer() {
+        Player[] players = decodePlayers();
+
+        for (int playerIndex = players.length - 1; playerIndex >= 0; --playerIndex) {
+            Player player = players[playerIndex];
+            if (player.isMe()) {
+                return player;
+            }
+        }
+
+        return null;
+    }
+
+    private synchronized Player[] decodePlayers() {
+        if (players == null) {
+            rawUnits.position(playersOffset);
+            players = RemoteProcessClient.readPlayers(rawUnits);
+        }
+
+        return players;
+    }
+
+    private synchronized Car[] decodeCars() {
+        if (cars == null) {
+            rawUnits.position(carsOffset);
+            cars = RemoteProcessClient.readCars(rawUnits);
+        }
+
+        return cars;
+    }
+
+    private synchronized Projectile[] decodeProjectiles() {
+        if (projectiles == null) {
+            rawUnits.position(projectilesOffset);
+            projectiles = RemoteProcessClient.readProjectiles(rawUnits);
+        }
+
+        return projectiles;
+    }
+
+    private synchronized Bonus[] decodeBonuses() {
+        if (bonuses == null) {
+            rawUnits.position(bonusesOffset);
+            bonuses = RemoteProcessClient.readBonuses(rawUnits);
+        }
+
+        return bonuses;
+    }
+
+    private synchronized OilSlick[] decodeOilSlicks() {
+        if (oilSlicks == null) {
+            rawUnits.position(oilSlicksOffset);
+            oilSlicks = RemoteProcessClient.readOilSlicks(rawUnits);
+        }
+
+        return oilSlicks;
+    }
+}
@@ -0,0 +1,280 @@
+import model.Direction;
+import model.TileType;
+import model.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Directory of versioned binary files, one per map name, holding the static map data ({@code tilesXY},
+ * {@code waypoints}, {@code startingDirection}) together with named sections of derived data that strategies
+ * computed for that map. Files are read whole into memory on load, so no file is held open or mapped during the
+ * game, and replaced atomically on save, so several runners may share one directory.
+ */
+public final class MapCache {
+    private static final int MAGIC = 0x4D415043;
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_EXTENSION = ".map";
+
+    private static final TileType[] TILE_TYPES = TileType.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final File directory;
+
+    public MapCache(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create map cache directory '" + directory + "'.");
+        }
+
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the cached entry for the map of {@code world}. Derived sections are kept only if the cached static data
+     * matches the map actually received; otherwise (or if there is no usable file) an empty entry is returned.
+     */
+    public Entry open(World world) throws IOException {
+        Entry entry = new Entry(
+                getFile(world.getMapName()), world.getMapName(), world.getTilesXY(), world.getWaypoints(),
+                world.getStartingDirection()
+        );
+
+        if (entry.file.isFile()) {
+            entry.load();
+        }
+
+        return entry;
+    }
+
+    private File getFile(String mapName) {
+        StringBuilder fileName = new StringBuilder(mapName.length() + FILE_EXTENSION.length());
+
+        for (int charIndex = 0; charIndex < mapName.length(); ++charIndex) {
+            char c = mapName.charAt(charIndex);
+            fileName.append(Character.isLetterOrDigit(c) || c == '-' || c == '_' ? c : '_');
+        }
+
+        return new File(directory, fileName.append(FILE_EXTENSION).toString());
+    }
+
+    public static final class Entry {
+        private final File file;
+        private final String mapName;
+        private final TileType[][] tilesXY;
+        private final int[][] waypoints;
+        private final Direction startingDirection;
+
+        private final Map<String, ByteBuffer> sections = new LinkedHashMap<>();
+        private boolean modified = true;
+
+        private Entry(
+                File file, String mapName, TileType[][] tilesXY, int[][] waypoints, Direction startingDirection) {
+            this.file = file;
+            this.mapName = mapName;
+            this.tilesXY = tilesXY;
+            this.waypoints = waypoints;
+            this.startingDirection = startingDirection;
+        }
+
+        public String getMapName() {
+            return mapName;
+        }
+
+        /**
+         * @return {@code true} if the entry was loaded from disk, i.e. this map has been played before
+         */
+        public synchronized boolean isCached() {
+            return !modified;
+        }
+
+        /**
+         * @return read-only little-endian view of the named derived section, or {@code null} if it is not cached
+         */
+        public synchronized ByteBuffer getSection(String name) {
+            ByteBuffer section = sections.get(name);
+            return section == null ? null : section.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        /**
+         * Registers derived data for this map. The remaining bytes of {@code data} are copied; the entry is written
+         * to disk by {@link #save()}.
+         */
+        public synchronized void putSection(String name, ByteBuffer data) {
+            ByteBuffer section = ByteBuffer.allocate(data.remaining());
+            section.put(data.duplicate());
+            section.flip();
+
+            sections.put(name, section);
+            modified = true;
+        }
+
+        public synchronized void save() throws IOException {
+            if (!modified) {
+                return;
+            }
+
+            int sizeBytes = getSizeBytes();
+            ByteBuffer buffer = ByteBuffer.allocate(sizeBytes).order(ByteOrder.LITTLE_ENDIAN);
+            writeStaticData(buffer);
+
+            buffer.putInt(sections.size());
+            for (Map.Entry<String, ByteBuffer> section : sections.entrySet()) {
+                putString(buffer, section.getKey());
+                buffer.putInt(section.getValue().remaining());
+                buffer.put(section.getValue().duplicate());
+            }
+
+            buffer.flip();
+
+            File temporaryFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            try {
+                RandomAccessFile randomAccessFile = new RandomAccessFile(temporaryFile, "rw");
+                try {
+                    FileChannel channel = randomAccessFile.getChannel();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                } finally {
+                    randomAccessFile.close();
+                }
+
+                Files.move(
+                        temporaryFile.toPath(), file.toPath(),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING
+                );
+            } finally {
+                if (temporaryFile.exists() && !temporaryFile.delete()) {
+                    temporaryFile.deleteOnExit();
+                }
+            }
+
+            modified = false;
+        }
+
+        private void load() throws IOException {
+            // Sections are slices of this buffer. A mapped buffer would keep the file mapped for the whole game, and
+            // Windows does not replace a mapped file on save.
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+
+            try {
+                if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION || !readStaticDataMatches(buffer)) {
+                    return;
+                }
+
+                int sectionCount = buffer.getInt();
+                for (int sectionIndex = 0; sectionIndex < sectionCount; ++sectionIndex) {
+                    String name = getString(buffer);
+                    int sizeBytes = buffer.getInt();
+
+                    ByteBuffer section = buffer.slice();
+                    section.limit(sizeBytes);
+                    buffer.position(buffer.position() + sizeBytes);
+
+                    sections.put(name, section);
+                }
+            } catch (RuntimeException e) {
+                sections.clear();
+                return;
+            }
+
+            modified = false;
+        }
+
+        private boolean readStaticDataMatches(ByteBuffer buffer) {
+            if (!mapName.equals(getString(buffer))) {
+                return false;
+            }
+
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            if (width != tilesXY.length) {
+                return false;
+            }
+
+            TileType[][] cachedTilesXY = new TileType[width][height];
+            for (int x = 0; x < width; ++x) {
+                for (int y = 0; y < height; ++y) {
+                    byte ordinal = buffer.get();
+                    cachedTilesXY[x][y] = ordinal >= 0 && ordinal < TILE_TYPES.length ? TILE_TYPES[ordinal] : null;
+                }
+            }
+
+            int[][] cachedWaypoints = new int[buffer.getInt()][2];
+            for (int[] waypoint : cachedWaypoints) {
+                waypoint[0] = buffer.getInt();
+                waypoint[1] = buffer.getInt();
+            }
+
+            byte directionOrdinal = buffer.get();
+            Direction cachedStartingDirection = directionOrdinal >= 0 && directionOrdinal < DIRECTIONS.length
+                    ? DIRECTIONS[directionOrdinal]
+                    : null;
+
+            return Arrays.deepEquals(cachedTilesXY, tilesXY) && Arrays.deepEquals(cachedWaypoints, waypoints)
+                    && cachedStartingDirection == startingDirection;
+        }
+
+        private void writeStaticData(ByteBuffer buffer) {
+            buffer.putInt(MAGIC);
+            buffer.putInt(FORMAT_VERSION);
+            putString(buffer, mapName);
+
+            int width = tilesXY.length;
+            int height = width == 0 ? 0 : tilesXY[0].length;
+            buffer.putInt(width);
+            buffer.putInt(height);
+
+            for (TileType[] tilesY : tilesXY) {
+                for (int y = 0; y < height; ++y) {
+                    buffer.put(tilesY[y] == null ? (byte) -1 : (byte) tilesY[y].ordinal());
+                }
+            }
+
+            buffer.putInt(waypoints.length);
+            for (int[] waypoint : waypoints) {
+                buffer.putInt(waypoint[0]);
+                buffer.putInt(waypoint[1]);
+            }
+
+            buffer.put(startingDirection == null ? (byte) -1 : (byte) startingDirection.ordinal());
+        }
+
+        private int getSizeBytes() {
+            int width = tilesXY.length;
+            int height = width == 0 ? 0 : tilesXY[0].length;
+            int sizeBytes = 4 * 4 + getStringSizeBytes(mapName) + width * height + 4 + waypoints.length * 8 + 1 + 4;
+
+            for (Map.Entry<String, ByteBuffer> section : sections.entrySet()) {
+                sizeBytes += getStringSizeBytes(section.getKey()) + 4 + section.getValue().remaining();
+            }
+
+            return sizeBytes;
+        }
+    }
+
+    private static int getStringSizeBytes(String value) {
+        return 4 + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,7 @@
+/**
+ * Optional interface of a {@link Strategy} that keeps derived map data in a {@link MapCache}. The runner passes the
+ * entry of the current map before the first {@link Strategy#move} call of a game.
+ */
+public interface MapCacheAware {
+    void setMapCacheEntry(MapCache.Entry mapCacheEntry);
+}
@@ -0,0 +1,89 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Append-only file written through a sliding memory-mapped window. Nothing is forced to disk explicitly: the
+ * operating system writes dirty pages back on its own schedule.
+ * <p>
+ * The file is not trimmed to its real length on close and stays padded with zeros up to the end of the last mapped
+ * chunk. A file can't be truncated on Windows while a mapping of it is alive, and Java unmaps a buffer only once it
+ * has been garbage collected, so writers that need the real length must record {@link #getPosition()} themselves.
+ */
+public final class MappedFileAppender implements Closeable {
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int chunkSizeBytes;
+
+    private MappedByteBuffer chunk;
+    private long chunkOffset;
+
+    public MappedFileAppender(File file, int chunkSizeBytes) throws IOException {
+        this.file = new RandomAccessFile(file, "rw");
+        this.channel = this.file.getChannel();
+        this.chunkSizeBytes = chunkSizeBytes;
+
+        channel.truncate(0L);
+        mapChunk(0L);
+    }
+
+    public long getPosition() {
+        return chunkOffset + chunk.position();
+    }
+
+    public void append(ByteBuffer source) throws IOException {
+        int limit = source.limit();
+
+        while (source.hasRemaining()) {
+            if (!chunk.hasRemaining()) {
+                mapChunk(getPosition());
+            }
+
+            source.limit(source.position() + StrictMath.min(source.remaining(), chunk.remaining()));
+            chunk.put(source);
+            source.limit(limit);
+        }
+    }
+
+    public void appendLong(long value) throws IOException {
+        if (chunk.remaining() < Long.SIZE / Byte.SIZE) {
+            mapChunk(getPosition());
+        }
+
+        chunk.putLong(value);
+    }
+
+    /**
+     * Overwrites a long that has already been appended at {@code position}.
+     */
+    public void putLong(long position, long value) throws IOException {
+        if (position >= chunkOffset && position + Long.SIZE / Byte.SIZE <= getPosition()) {
+            chunk.putLong((int) (position - chunkOffset), value);
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(Long.SIZE / Byte.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(value).flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        chunk = null;
+        file.close();
+    }
+
+    private void mapChunk(long offset) throws IOException {
+        chunk = channel.map(FileChannel.MapMode.READ_WRITE, offset, chunkSizeBytes);
+        chunk.order(ByteOrder.LITTLE_ENDIAN);
+        chunkOffset = offset;
+    }
+}
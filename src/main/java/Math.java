@@ -360,4 +360,17 @@ public final class Math {
     public static double atan2(double y, double x) {
         return StrictMath.atan2(y, x);
     }
+
+    /**
+     * @return the same angle in the range from {@code -PI} to {@code PI}, or {@code NaN} if {@code angle} is infinite
+     * or {@code NaN}
+     */
+    public static double normalizeAngle(double angle) {
+        if (angle >= -PI && angle <= PI) {
+            return angle;
+        }
+
+        // Takes constant time for any magnitude; the remainder is exact, and infinite input gives NaN.
+        return StrictMath.IEEEremainder(angle, DOUBLE_PI);
+    }
 }
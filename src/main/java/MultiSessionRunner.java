@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Hosts many {@link Runner} sessions in one JVM, so that a tuning farm pays for startup and JIT warm-up once. Every
+ * session has its own connection and its own strategy instances. Sessions run on virtual threads when the JVM
+ * provides them and on ordinary threads otherwise.
+ * <p>
+ * The {@code runner.*} system properties apply to all sessions, except that the warm-up journal is played once before
+ * any session starts and a journal is recorded for each session in a {@code session-<n>} subdirectory.
+ * <p>
+ * Usage: {@code MultiSessionRunner <host> <port> <token> [<host> <port> <token> ...]}.
+ */
+public final class MultiSessionRunner {
+    private MultiSessionRunner() {
+        throw new UnsupportedOperationException();
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0 || args.length % 3 != 0) {
+            System.err.println("Usage: MultiSessionRunner <host> <port> <token> [<host> <port> <token> ...]");
+            System.exit(1);
+        }
+
+        RunnerSettings settings = RunnerSettings.fromSystemProperties();
+        Runner.warmUp(settings);
+
+        ExecutorService executor = newSessionExecutor();
+        List<Future<?>> sessions = new ArrayList<>(args.length / 3);
+
+        try {
+            for (int argIndex = 0; argIndex < args.length; argIndex += 3) {
+                final String host = args[argIndex];
+                final int port = Integer.parseInt(args[argIndex + 1]);
+                final String token = args[argIndex + 2];
+                final RunnerSettings sessionSettings = settings.forSession(argIndex / 3);
+
+                sessions.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            new Runner(host, port, token, sessionSettings).run();
+                        } catch (IOException e) {
+                            throw new RuntimeException(String.format(
+                                    "Session %s:%d failed.", host, port
+                            ), e);
+                        }
+                    }
+                }));
+            }
+
+            int failedSessionCount = 0;
+
+            for (Future<?> session : sessions) {
+                try {
+                    session.get();
+                } catch (ExecutionException e) {
+                    ++failedSessionCount;
+                    e.getCause().printStackTrace();
+                }
+            }
+
+            if (failedSessionCount > 0) {
+                System.err.printf("%d of %d sessions failed.%n", failedSessionCount, sessions.size());
+                System.exit(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ExecutorService newSessionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException ignored) {
+            // Virtual threads are not available before Java 21.
+        } catch (IllegalAccessException | InvocationTargetException ignored) {
+            // Virtual threads are disabled in this JVM.
+        }
+
+        return Executors.newCachedThreadPool();
+    }
+}
@@ -0,0 +1,130 @@
+import model.Car;
+import model.Game;
+import model.Move;
+import model.World;
+
+import java.io.Closeable;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the {@link Strategy#move} calls of all cars of a tick at the same time: the calling thread moves the first car
+ * and a fixed pool of worker threads moves the others, then the calling thread waits for every call to complete
+ * before the moves can be written. Teammates read the same world and game concurrently, so whatever their strategies
+ * share must be thread-safe; {@link LazyWorld} and {@link MapCache.Entry} are.
+ */
+final class ParallelMoveExecutor implements Closeable {
+    private final Strategy[] strategies;
+    private final ThreadPoolExecutor executor;
+    private final Future<?>[] pendingMoves;
+    private final long[] moveNanos;
+    private ChromeTrace chromeTrace;
+
+    ParallelMoveExecutor(Strategy[] strategies) {
+        this.strategies = strategies;
+        this.pendingMoves = new Future<?>[strategies.length];
+        this.moveNanos = new long[strategies.length];
+
+        int workerCount = StrictMath.max(1, strategies.length - 1);
+        executor = new ThreadPoolExecutor(
+                workerCount, workerCount, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new DaemonThreadFactory("teammate-")
+        );
+        executor.prestartAllCoreThreads();
+    }
+
+    void setChromeTrace(ChromeTrace chromeTrace) {
+        this.chromeTrace = chromeTrace;
+    }
+
+    void moveAll(Car[] cars, World world, Game game, Move[] moves) throws InterruptedIOException {
+        for (int carIndex = 1; carIndex < cars.length; ++carIndex) {
+            pendingMoves[carIndex] = executor.submit(newMoveTask(cars[carIndex], world, game, moves[carIndex]));
+        }
+
+        try {
+            newMoveTask(cars[0], world, game, moves[0]).run();
+
+            for (int carIndex = 1; carIndex < cars.length; ++carIndex) {
+                try {
+                    pendingMoves[carIndex].get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for teammates to move.");
+                } catch (ExecutionException e) {
+                    throw rethrowCause(e);
+                } finally {
+                    pendingMoves[carIndex] = null;
+                }
+            }
+        } finally {
+            cancelPendingMoves();
+        }
+    }
+
+    /**
+     * @return duration of the latest {@link Strategy#move} call of the teammate, valid after {@link #moveAll}
+     */
+    long getMoveNanos(int teammateIndex) {
+        return moveNanos[teammateIndex];
+    }
+
+    /**
+     * Cancels the teammate moves still pending after a failed call, so that none of them is left running while the
+     * failure propagates. Does nothing after a successful call, which has already waited for all of them.
+     */
+    private void cancelPendingMoves() {
+        for (int carIndex = 1; carIndex < pendingMoves.length; ++carIndex) {
+            if (pendingMoves[carIndex] != null) {
+                pendingMoves[carIndex].cancel(true);
+                pendingMoves[carIndex] = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private Runnable newMoveTask(final Car self, final World world, final Game game, final Move move) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                int teammateIndex = self.getTeammateIndex();
+                long startNanos = System.nanoTime();
+                Trace.Span span = Trace.beginPhase(Trace.Phase.STRATEGY_MOVE, world.getTick(), teammateIndex);
+                try {
+                    strategies[teammateIndex].move(self, world, game, move);
+                } finally {
+                    span.close();
+                }
+                moveNanos[teammateIndex] = System.nanoTime() - startNanos;
+
+                if (chromeTrace != null) {
+                    chromeTrace.record(
+                            ChromeTrace.STRATEGY_CATEGORY, "move", startNanos, world.getTick(), teammateIndex
+                    );
+                }
+            }
+        };
+    }
+
+    /**
+     * Throws the unchecked failure of a strategy call as is and wraps a checked one.
+     */
+    static RuntimeException rethrowCause(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new IllegalStateException("Strategy failed.", cause);
+    }
+}
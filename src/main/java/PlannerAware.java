@@ -0,0 +1,11 @@
+/**
+ * Optional interface of a {@link Strategy} that leaves its expensive search to a {@link BackgroundPlanner}. The runner
+ * asks for the planner once after the game context arrives, starts its thread, and passes it the world of every tick
+ * right before the {@link Strategy#move} call of the car.
+ */
+public interface PlannerAware {
+    /**
+     * @return planner of the strategy, or {@code null} to plan in {@link Strategy#move} as usual
+     */
+    BackgroundPlanner<?> getBackgroundPlanner();
+}
@@ -0,0 +1,211 @@
+import model.Game;
+import model.World;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background precomputation stage of a game. Strategies implementing {@link PrecomputeAware} register tasks before
+ * the first tick, and the runner starts them on worker threads as soon as the game context and the first world have
+ * arrived, so they run during the initial freeze period ({@link Game#getInitialFreezeDurationTicks()}) instead of
+ * eating into the move time of later ticks. Strategies poll the returned {@link Result}s from {@link Strategy#move}.
+ * <p>
+ * Tasks get the world of the first tick and read it after the runner has moved on, so the runner refuses to combine
+ * them with a {@link model.UnitPool} or with lazy world decoding.
+ */
+public final class Precomputations implements Closeable {
+    private final List<Result<?>> results = new ArrayList<>();
+    private boolean started;
+    private ExecutorService executor;
+    private ChromeTrace chromeTrace;
+
+    /**
+     * @throws IllegalStateException if the tasks have already been started
+     */
+    public synchronized <T> Result<T> register(String name, Task<T> task) {
+        if (started) {
+            throw new IllegalStateException("Can't register '" + name + "': precomputations have already started.");
+        }
+
+        Result<T> result = new Result<>(name, task);
+        results.add(result);
+        return result;
+    }
+
+    public synchronized boolean isDone() {
+        for (Result<?> result : results) {
+            if (!result.isDone()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    synchronized boolean isEmpty() {
+        return results.isEmpty();
+    }
+
+    synchronized List<Result<?>> getResults() {
+        return new ArrayList<>(results);
+    }
+
+    synchronized void setChromeTrace(ChromeTrace chromeTrace) {
+        this.chromeTrace = chromeTrace;
+    }
+
+    synchronized void start(final Game game, final World world) {
+        if (started) {
+            return;
+        }
+
+        started = true;
+
+        if (results.isEmpty()) {
+            return;
+        }
+
+        int threadCount = StrictMath.min(
+                results.size(), StrictMath.max(1, Runtime.getRuntime().availableProcessors() - 1)
+        );
+        executor = Executors.newFixedThreadPool(
+                threadCount, new DaemonThreadFactory("precompute-")
+        );
+
+        final ChromeTrace chromeTrace = this.chromeTrace;
+
+        for (final Result<?> result : results) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    long startNanos = System.nanoTime();
+                    result.compute(game, world);
+
+                    if (chromeTrace != null) {
+                        chromeTrace.record(ChromeTrace.BACKGROUND_CATEGORY, result.getName(), startNanos, -1, -1);
+                    }
+                }
+            });
+        }
+
+        executor.shutdown();
+    }
+
+    /**
+     * Asks running tasks to stop and interrupts them.
+     */
+    @Override
+    public synchronized void close() {
+        started = true;
+
+        for (Result<?> result : results) {
+            result.progress.cancelled = true;
+        }
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public interface Task<T> {
+        /**
+         * Runs on a worker thread. Should report progress now and then and return early once it is cancelled.
+         */
+        T compute(Game game, World world, Progress progress) throws Exception;
+    }
+
+    public static final class Progress {
+        private volatile double fraction;
+        private volatile boolean cancelled;
+
+        private Progress() {
+        }
+
+        /**
+         * @param fraction share of the work done, from {@code 0.0} to {@code 1.0}
+         */
+        public void report(double fraction) {
+            this.fraction = fraction;
+        }
+
+        public double getFraction() {
+            return fraction;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    /**
+     * Outcome of a task. The value is published safely: once {@link #isDone()} returns {@code true}, {@link
+     * #getNow()} returns the fully built value on any thread.
+     */
+    public static final class Result<T> {
+        private final String name;
+        private final Task<T> task;
+        private final Progress progress = new Progress();
+        private final CountDownLatch doneLatch = new CountDownLatch(1);
+
+        private volatile T value;
+        private volatile Throwable failure;
+        private volatile boolean done;
+
+        private Result(String name, Task<T> task) {
+            this.name = name;
+            this.task = task;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        public double getProgress() {
+            return done ? 1.0D : progress.getFraction();
+        }
+
+        /**
+         * @return the value, or {@code null} while the task is running or if it failed
+         */
+        public T getNow() {
+            return value;
+        }
+
+        /**
+         * @return what the task threw, or {@code null}
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        /**
+         * Waits for the task at most {@code timeout}. Meant for the rare tick that can't go on without the value.
+         *
+         * @return the value, or {@code null} if the task is still running or failed
+         */
+        public T await(long timeout, TimeUnit unit) throws InterruptedException {
+            doneLatch.await(timeout, unit);
+            return value;
+        }
+
+        private void compute(Game game, World world) {
+            try {
+                value = task.compute(game, world, progress);
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                done = true;
+                doneLatch.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * Optional interface of a {@link Strategy} that prepares data in the background during the initial freeze period.
+ * The runner calls it once after the game context arrives and before the first {@link Strategy#move} call; tasks
+ * registered there start as soon as the first world arrives.
+ */
+public interface PrecomputeAware {
+    void registerPrecomputations(Precomputations precomputations);
+}
@@ -2,23 +2,58 @@ import model.*;
 
 import java.io.*;
 import java.lang.reflect.Array;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.Comparator;
 
 public final class RemoteProcessClient implements Closeable {
     private static final int BUFFER_SIZE_BYTES = 1 << 20;
     private static final ByteOrder PROTOCOL_BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
     private static final int INTEGER_SIZE_BYTES = Integer.SIZE / Byte.SIZE;
     private static final int LONG_SIZE_BYTES = Long.SIZE / Byte.SIZE;
+    private static final int MOVE_SIZE_BYTES = 2 * LONG_SIZE_BYTES + 4;
+    private static final int CAR_SIZE_BYTES = 14 * LONG_SIZE_BYTES + 11 * INTEGER_SIZE_BYTES + 3;
+    private static final int PROJECTILE_SIZE_BYTES = 11 * LONG_SIZE_BYTES + 1;
+    private static final int BONUS_SIZE_BYTES = 10 * LONG_SIZE_BYTES + 1;
+    private static final int OIL_SLICK_SIZE_BYTES = 9 * LONG_SIZE_BYTES + INTEGER_SIZE_BYTES;
+    private static final int INITIAL_RAW_UNITS_SIZE_BYTES = 1 << 13;
+
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+    private static final TileType[] TILE_TYPES = TileType.values();
+    private static final CarType[] CAR_TYPES = CarType.values();
+    private static final ProjectileType[] PROJECTILE_TYPES = ProjectileType.values();
+    private static final BonusType[] BONUS_TYPES = BonusType.values();
+    private static final Direction[] DIRECTIONS = Direction.values();
 
     private final Socket socket;
+    private final SocketChannel socketChannel;
     private final InputStream inputStream;
     private final OutputStream outputStream;
-    private final ByteArrayOutputStream outputStreamBuffer;
+
+    private final ByteBuffer inputBuffer;
+    private final ByteBuffer outputBuffer;
+    private byte[] stringBuffer = new byte[64];
+    private long receivedByteCount;
+    private long sentByteCount;
+    private MessageType lastReadMessageType;
+
+    private WireMetrics metrics;
+    private long decodeFillNanos;
+
+    private DeltaCodec deltaCodec;
+
+    private boolean lazyWorldDecoding;
+    private UnitPool unitPool;
+    private final ByteBuffer[] rawUnitBuffers = new ByteBuffer[2];
+    private int rawUnitBufferIndex;
+    private ByteBuffer rawUnits;
+
+    private TickJournal journal;
+    private ByteBuffer inputJournalView;
+    private ByteBuffer outputJournalView;
 
     private String mapName;
     private TileType[][] tilesXY;
@@ -26,39 +61,121 @@ public final class RemoteProcessClient implements Closeable {
     private Direction startingDirection;
 
     public RemoteProcessClient(String host, int port) throws IOException {
-        socket = new Socket(host, port);
-        socket.setSendBufferSize(BUFFER_SIZE_BYTES);
-        socket.setReceiveBufferSize(BUFFER_SIZE_BYTES);
-        socket.setTcpNoDelay(true);
+        this(host, port, Transport.STREAM);
+    }
+
+    public RemoteProcessClient(String host, int port, Transport transport) throws IOException {
+        if (transport == Transport.CHANNEL) {
+            socketChannel = SocketChannel.open();
+            socket = socketChannel.socket();
+            setSocketOptions(socket);
+            socketChannel.connect(new InetSocketAddress(host, port));
+
+            inputStream = null;
+            outputStream = null;
+
+            inputBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE_BYTES).order(PROTOCOL_BYTE_ORDER);
+            outputBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE_BYTES).order(PROTOCOL_BYTE_ORDER);
+        } else {
+            socketChannel = null;
+            socket = new Socket(host, port);
+            setSocketOptions(socket);
+
+            inputStream = socket.getInputStream();
+            outputStream = socket.getOutputStream();
+
+            inputBuffer = ByteBuffer.allocate(BUFFER_SIZE_BYTES).order(PROTOCOL_BYTE_ORDER);
+            outputBuffer = ByteBuffer.allocate(BUFFER_SIZE_BYTES).order(PROTOCOL_BYTE_ORDER);
+        }
+
+        inputBuffer.limit(0);
+    }
+
+    /**
+     * Talks to a server through the given streams instead of a socket, e.g. to decode a recorded journal in process.
+     */
+    RemoteProcessClient(InputStream inputStream, OutputStream outputStream) {
+        socketChannel = null;
+        socket = null;
+
+        this.inputStream = inputStream;
+        this.outputStream = outputStream;
+
+        inputBuffer = ByteBuffer.allocate(BUFFER_SIZE_BYTES).order(PROTOCOL_BYTE_ORDER);
+        outputBuffer = ByteBuffer.allocate(BUFFER_SIZE_BYTES).order(PROTOCOL_BYTE_ORDER);
 
-        inputStream = socket.getInputStream();
-        outputStream = socket.getOutputStream();
-        outputStreamBuffer = new ByteArrayOutputStream(BUFFER_SIZE_BYTES);
+        inputBuffer.limit(0);
+    }
+
+    public void startJournal(File directory) throws IOException {
+        journal = new TickJournal(directory);
+        inputJournalView = inputBuffer.duplicate();
+        outputJournalView = outputBuffer.duplicate();
+    }
+
+    /**
+     * In lazy mode the player, car, projectile, bonus and oil slick sections of each world are kept as raw bytes and
+     * decoded by {@link LazyWorld} on first access. The raw bytes live in one of two buffers owned by the client, which
+     * take turns, so a world must be decoded before the player context after the next one is read.
+     */
+    public void setLazyWorldDecoding(boolean lazyWorldDecoding) {
+        this.lazyWorldDecoding = lazyWorldDecoding;
+    }
+
+    /**
+     * Makes eagerly decoded cars, projectiles, bonuses and oil slicks come from {@code unitPool}, which is advanced
+     * to the next tick on every player context. See {@link UnitPool} for the contract strategies must follow.
+     */
+    public void setUnitPool(UnitPool unitPool) {
+        this.unitPool = unitPool;
+    }
+
+    /**
+     * Requests the compact protocol version of {@link DeltaCodec} in {@link #writeProtocolVersion()}. Only servers
+     * of our own understand it. Player contexts are then always decoded eagerly: lazy world decoding is ignored and
+     * {@link #readPlayerContext(WorldColumns)} is not supported.
+     */
+    public void setDeltaProtocol(boolean deltaProtocol) {
+        this.deltaCodec = deltaProtocol ? new DeltaCodec() : null;
+    }
+
+    public void setMetrics(WireMetrics metrics) {
+        this.metrics = metrics;
     }
 
     public void writeToken(String token) throws IOException {
+        long startByteCount = getWrittenByteCount();
         writeEnum(MessageType.AUTHENTICATION_TOKEN);
         writeString(token);
+        recordWrite(MessageType.AUTHENTICATION_TOKEN, startByteCount);
         flush();
     }
 
     public int readTeamSize() throws IOException {
-        ensureMessageType(readEnum(MessageType.class), MessageType.TEAM_SIZE);
-        return readInt();
+        long startByteCount = getReadByteCount();
+        ensureMessageType(readMessageType(), MessageType.TEAM_SIZE);
+        int teamSize = readInt();
+        recordRead(startByteCount);
+        return teamSize;
     }
 
     public void writeProtocolVersion() throws IOException {
+        long startByteCount = getWrittenByteCount();
         writeEnum(MessageType.PROTOCOL_VERSION);
-        writeInt(1);
+        writeInt(deltaCodec == null ? 1 : DeltaCodec.PROTOCOL_VERSION);
+        recordWrite(MessageType.PROTOCOL_VERSION, startByteCount);
         flush();
     }
 
     public Game readGameContext() throws IOException {
-        ensureMessageType(readEnum(MessageType.class), MessageType.GAME_CONTEXT);
-        if (!readBoolean()) {
-            return null;
-        }
+        long startByteCount = getReadByteCount();
+        ensureMessageType(readMessageType(), MessageType.GAME_CONTEXT);
+        Game game = readBoolean() ? readGame() : null;
+        recordRead(startByteCount);
+        return game;
+    }
 
+    private Game readGame() throws IOException {
         return new Game(
                 readLong(), readInt(), readInt(), readInt(), readDouble(), readDouble(), readInt(), readInt(),
                 readInt(), readDouble(), readIntArray(), readInt(), readDouble(), readDouble(), readInt(), readDouble(),
@@ -71,49 +188,152 @@ public final class RemoteProcessClient implements Closeable {
         );
     }
 
+    /**
+     * Blocks until the next message starts to arrive, so that waiting for the server can be told apart from decoding.
+     */
+    public void awaitMessage() throws IOException {
+        ensureReadable(1);
+    }
+
     public PlayerContext readPlayerContext() throws IOException {
-        MessageType messageType = readEnum(MessageType.class);
-        if (messageType == MessageType.GAME_OVER) {
-            return null;
+        long startByteCount = getReadByteCount();
+        PlayerContext playerContext;
+
+        if (!readPlayerContextHeader()) {
+            playerContext = null;
+        } else if (deltaCodec == null) {
+            playerContext = new PlayerContext(readCars(), readWorld());
+        } else {
+            playerContext = readDeltaPlayerContext();
         }
 
-        ensureMessageType(messageType, MessageType.PLAYER_CONTEXT);
-        return readBoolean() ? new PlayerContext(readCars(), readWorld()) : null;
+        recordRead(startByteCount);
+        return playerContext;
+    }
+
+    /**
+     * Columnar counterpart of {@link #readPlayerContext()}: decodes the next player context into {@code columns}
+     * without creating player, car, projectile, bonus or oil slick objects.
+     *
+     * @return {@code false} if the game is over or the server sent no player context
+     */
+    public boolean readPlayerContext(WorldColumns columns) throws IOException {
+        if (deltaCodec != null) {
+            throw new IllegalStateException("Columnar decoding is not supported by the delta protocol.");
+        }
+
+        long startByteCount = getReadByteCount();
+        boolean playerContextPresent = readPlayerContextHeader();
+
+        if (playerContextPresent) {
+            readCars(columns.myCars);
+            readWorld(columns);
+        }
+
+        recordRead(startByteCount);
+        return playerContextPresent;
     }
 
     public void writeMoves(Move[] moves) throws IOException {
-        writeEnum(MessageType.MOVES);
+        long startNanos = metrics == null ? 0L : System.nanoTime();
+        int moveCount = moves == null ? 0 : moves.length;
+        ensureWritable(1 + INTEGER_SIZE_BYTES + moveCount * (1 + MOVE_SIZE_BYTES));
+        int messagePosition = outputBuffer.position();
+
+        outputBuffer.put((byte) MessageType.MOVES.ordinal());
 
         if (moves == null) {
-            writeInt(-1);
+            outputBuffer.putInt(-1);
         } else {
-            int moveCount = moves.length;
-            writeInt(moveCount);
+            outputBuffer.putInt(moveCount);
 
             for (int moveIndex = 0; moveIndex < moveCount; ++moveIndex) {
                 Move move = moves[moveIndex];
 
                 if (move == null) {
-                    writeBoolean(false);
+                    outputBuffer.put((byte) 0);
                 } else {
-                    writeBoolean(true);
-
-                    writeDouble(move.getEnginePower());
-                    writeBoolean(move.isBrake());
-                    writeDouble(move.getWheelTurn());
-                    writeBoolean(move.isThrowProjectile());
-                    writeBoolean(move.isUseNitro());
-                    writeBoolean(move.isSpillOil());
+                    outputBuffer.put((byte) 1);
+
+                    outputBuffer.putDouble(move.getEnginePower());
+                    outputBuffer.put(move.isBrake() ? (byte) 1 : (byte) 0);
+                    outputBuffer.putDouble(move.getWheelTurn());
+                    outputBuffer.put(move.isThrowProjectile() ? (byte) 1 : (byte) 0);
+                    outputBuffer.put(move.isUseNitro() ? (byte) 1 : (byte) 0);
+                    outputBuffer.put(move.isSpillOil() ? (byte) 1 : (byte) 0);
                 }
             }
         }
 
-        flush();
+        if (journal != null) {
+            outputJournalView.limit(outputBuffer.position());
+            outputJournalView.position(messagePosition);
+            journal.appendMoves(outputJournalView);
+        }
+
+        if (metrics == null) {
+            flush();
+        } else {
+            metrics.recordWrite(MessageType.MOVES, outputBuffer.position() - messagePosition);
+            long encodedNanos = System.nanoTime();
+            flush();
+            metrics.recordMoves(encodedNanos - startNanos, System.nanoTime() - encodedNanos);
+        }
     }
 
     @Override
     public void close() throws IOException {
-        socket.close();
+        try {
+            if (socket == null) {
+                inputStream.close();
+
+                if (outputStream != null) {
+                    outputStream.close();
+                }
+            } else {
+                socket.close();
+            }
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    private boolean readPlayerContextHeader() throws IOException {
+        if (journal != null) {
+            journal.markPlayerContext(getReadByteCount());
+        }
+
+        MessageType messageType = readMessageType();
+        if (messageType == MessageType.GAME_OVER) {
+            return false;
+        }
+
+        ensureMessageType(messageType, MessageType.PLAYER_CONTEXT);
+
+        if (unitPool != null) {
+            unitPool.startTick();
+        }
+
+        return readBoolean();
+    }
+
+    private PlayerContext readDeltaPlayerContext() throws IOException {
+        int payloadSizeBytes = readInt();
+        ensureReadable(payloadSizeBytes);
+        int payloadEnd = inputBuffer.position() + payloadSizeBytes;
+
+        PlayerContext playerContext = deltaCodec.decode(inputBuffer, unitPool);
+
+        if (inputBuffer.position() != payloadEnd) {
+            throw new IOException(String.format(
+                    "Delta player context has wrong size [actual=%d, expected=%d].",
+                    inputBuffer.position() - payloadEnd + payloadSizeBytes, payloadSizeBytes
+            ));
+        }
+
+        return playerContext;
     }
 
     private World readWorld() throws IOException {
@@ -121,12 +341,154 @@ public final class RemoteProcessClient implements Closeable {
             return null;
         }
 
+        if (lazyWorldDecoding) {
+            return readLazyWorld();
+        }
+
+        int tick = readInt();
+        int tickCount = readInt();
+        int lastTickIndex = readInt();
+        int width = readInt();
+        int height = readInt();
+
+        long startNanos = startDecode();
+        Player[] players = readPlayers();
+        startNanos = recordDecode(WireMetrics.Section.PLAYERS, startNanos);
+        Car[] cars = readCars();
+        startNanos = recordDecode(WireMetrics.Section.CARS, startNanos);
+        Projectile[] projectiles = readProjectiles();
+        startNanos = recordDecode(WireMetrics.Section.PROJECTILES, startNanos);
+        Bonus[] bonuses = readBonuses();
+        startNanos = recordDecode(WireMetrics.Section.BONUSES, startNanos);
+        OilSlick[] oilSlicks = readOilSlicks();
+        recordDecode(WireMetrics.Section.OIL_SLICKS, startNanos);
+
         return new World(
-                readInt(), readInt(), readInt(), readInt(), readInt(), readPlayers(), readCars(), readProjectiles(),
-                readBonuses(), readOilSlicks(), readMapName(), readTilesXY(), readWaypoints(), readStartingDirection()
+                tick, tickCount, lastTickIndex, width, height, players, cars, projectiles, bonuses, oilSlicks,
+                readMapName(), readTilesXY(), readWaypoints(), readStartingDirection()
         );
     }
 
+    private void readWorld(WorldColumns columns) throws IOException {
+        columns.worldPresent = readBoolean();
+        if (!columns.worldPresent) {
+            return;
+        }
+
+        columns.tick = readInt();
+        columns.tickCount = readInt();
+        columns.lastTickIndex = readInt();
+        columns.width = readInt();
+        columns.height = readInt();
+
+        long startNanos = startDecode();
+        readPlayers(columns.players);
+        startNanos = recordDecode(WireMetrics.Section.PLAYERS, startNanos);
+        readCars(columns.cars);
+        startNanos = recordDecode(WireMetrics.Section.CARS, startNanos);
+        readProjectiles(columns.projectiles);
+        startNanos = recordDecode(WireMetrics.Section.PROJECTILES, startNanos);
+        readBonuses(columns.bonuses);
+        startNanos = recordDecode(WireMetrics.Section.BONUSES, startNanos);
+        readOilSlicks(columns.oilSlicks);
+        recordDecode(WireMetrics.Section.OIL_SLICKS, startNanos);
+
+        columns.mapName = readMapName();
+        columns.tilesXY = readTilesXY();
+        columns.waypoints = readWaypoints();
+        columns.startingDirection = readStartingDirection();
+    }
+
+    private World readLazyWorld() throws IOException {
+        int tick = readInt();
+        int tickCount = readInt();
+        int lastTickIndex = readInt();
+        int width = readInt();
+        int height = readInt();
+
+        rawUnitBufferIndex ^= 1;
+        rawUnits = rawUnitBuffers[rawUnitBufferIndex];
+        if (rawUnits == null) {
+            rawUnits = ByteBuffer.allocate(INITIAL_RAW_UNITS_SIZE_BYTES).order(PROTOCOL_BYTE_ORDER);
+        } else {
+            rawUnits.clear();
+        }
+
+        long startNanos = startDecode();
+        int playersOffset = rawUnits.position();
+        copyRawPlayers();
+        startNanos = recordDecode(WireMetrics.Section.PLAYERS, startNanos);
+        int carsOffset = rawUnits.position();
+        copyRawUnits(CAR_SIZE_BYTES);
+        startNanos = recordDecode(WireMetrics.Section.CARS, startNanos);
+        int projectilesOffset = rawUnits.position();
+        copyRawUnits(PROJECTILE_SIZE_BYTES);
+        startNanos = recordDecode(WireMetrics.Section.PROJECTILES, startNanos);
+        int bonusesOffset = rawUnits.position();
+        copyRawUnits(BONUS_SIZE_BYTES);
+        startNanos = recordDecode(WireMetrics.Section.BONUSES, startNanos);
+        int oilSlicksOffset = rawUnits.position();
+        copyRawUnits(OIL_SLICK_SIZE_BYTES);
+        recordDecode(WireMetrics.Section.OIL_SLICKS, startNanos);
+
+        // Copying may have grown the buffer.
+        rawUnitBuffers[rawUnitBufferIndex] = rawUnits;
+        rawUnits.flip();
+
+        // Worlds of different ticks share a buffer, so each gets its own position.
+        return new LazyWorld(
+                tick, tickCount, lastTickIndex, width, height, rawUnits.duplicate().order(PROTOCOL_BYTE_ORDER),
+                playersOffset, carsOffset, projectilesOffset, bonusesOffset, oilSlicksOffset, readMapName(),
+                readTilesXY(), readWaypoints(), readStartingDirection()
+        );
+    }
+
+    private void copyRawPlayers() throws IOException {
+        int playerCount = copyRawInt();
+
+        for (int playerIndex = 0; playerIndex < playerCount; ++playerIndex) {
+            if (copyRawBoolean()) {
+                copyRaw(LONG_SIZE_BYTES + 1);
+                copyRaw(StrictMath.max(copyRawInt(), 0));
+                copyRaw(1 + INTEGER_SIZE_BYTES);
+            }
+        }
+    }
+
+    private void copyRawUnits(int unitSizeBytes) throws IOException {
+        int unitCount = copyRawInt();
+
+        for (int unitIndex = 0; unitIndex < unitCount; ++unitIndex) {
+            if (copyRawBoolean()) {
+                copyRaw(unitSizeBytes);
+            }
+        }
+    }
+
+    private int copyRawInt() throws IOException {
+        copyRaw(INTEGER_SIZE_BYTES);
+        return rawUnits.getInt(rawUnits.position() - INTEGER_SIZE_BYTES);
+    }
+
+    private boolean copyRawBoolean() throws IOException {
+        copyRaw(1);
+        return rawUnits.get(rawUnits.position() - 1) != 0;
+    }
+
+    private void copyRaw(int byteCount) throws IOException {
+        if (rawUnits.remaining() < byteCount) {
+            ByteBuffer grownRawUnits = ByteBuffer.allocate(
+                    StrictMath.max(rawUnits.capacity() << 1, rawUnits.position() + byteCount)
+            ).order(PROTOCOL_BYTE_ORDER);
+            rawUnits.flip();
+            grownRawUnits.put(rawUnits);
+            rawUnits = grownRawUnits;
+        }
+
+        readBytes(rawUnits.array(), rawUnits.arrayOffset() + rawUnits.position(), byteCount);
+        rawUnits.position(rawUnits.position() + byteCount);
+    }
+
     private Player[] readPlayers() throws IOException {
         int playerCount = readInt();
         if (playerCount < 0) {
@@ -144,6 +506,41 @@ public final class RemoteProcessClient implements Closeable {
         return players;
     }
 
+    private void readPlayers(WorldColumns.PlayerColumns players) throws IOException {
+        players.count = 0;
+        int playerCount = readInt();
+
+        for (int playerIndex = 0; playerIndex < playerCount; ++playerIndex) {
+            if (readBoolean()) {
+                int row = players.addRow();
+                players.id[row] = readLong();
+                players.me[row] = readBoolean();
+                players.name[row] = readString();
+                players.strategyCrashed[row] = readBoolean();
+                players.score[row] = readInt();
+            }
+        }
+    }
+
+    static Player[] readPlayers(ByteBuffer buffer) {
+        int playerCount = buffer.getInt();
+        if (playerCount < 0) {
+            return null;
+        }
+
+        Player[] players = new Player[playerCount];
+
+        for (int playerIndex = 0; playerIndex < playerCount; ++playerIndex) {
+            if (buffer.get() != 0) {
+                players[playerIndex] = new Player(
+                        buffer.getLong(), buffer.get() != 0, readString(buffer), buffer.get() != 0, buffer.getInt()
+                );
+            }
+        }
+
+        return players;
+    }
+
     private Car[] readCars() throws IOException {
         int carCount = readInt();
         if (carCount < 0) {
@@ -159,19 +556,99 @@ public final class RemoteProcessClient implements Closeable {
         return cars;
     }
 
+    private void readCars(WorldColumns.CarColumns cars) throws IOException {
+        cars.count = 0;
+        int carCount = readInt();
+
+        for (int carIndex = 0; carIndex < carCount; ++carIndex) {
+            if (readBoolean()) {
+                ensureReadable(CAR_SIZE_BYTES);
+                readCar(inputBuffer, cars, cars.addRow());
+            }
+        }
+    }
+
+    static Car[] readCars(ByteBuffer buffer) {
+        int carCount = buffer.getInt();
+        if (carCount < 0) {
+            return null;
+        }
+
+        Car[] cars = new Car[carCount];
+
+        for (int carIndex = 0; carIndex < carCount; ++carIndex) {
+            cars[carIndex] = buffer.get() == 0 ? null : readCar(buffer);
+        }
+
+        return cars;
+    }
+
     private Car readCar() throws IOException {
         if (!readBoolean()) {
             return null;
         }
 
+        ensureReadable(CAR_SIZE_BYTES);
+        return unitPool == null ? readCar(inputBuffer) : readCar(inputBuffer, unitPool);
+    }
+
+    private static Car readCar(ByteBuffer buffer) {
         return new Car(
-                readLong(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(),
-                readDouble(), readDouble(), readDouble(), readLong(), readInt(), readBoolean(), readEnum(CarType.class),
-                readInt(), readInt(), readInt(), readInt(), readInt(), readInt(), readInt(), readInt(), readDouble(),
-                readDouble(), readDouble(), readInt(), readInt(), readBoolean()
+                buffer.getLong(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getLong(), buffer.getInt(), buffer.get() != 0, getEnumValue(CAR_TYPES, buffer.get()),
+                buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                buffer.getInt(), buffer.getInt(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getInt(), buffer.getInt(), buffer.get() != 0
         );
     }
 
+    private static Car readCar(ByteBuffer buffer, UnitPool unitPool) {
+        return unitPool.obtainCar(
+                buffer.getLong(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getLong(), buffer.getInt(), buffer.get() != 0, getEnumValue(CAR_TYPES, buffer.get()),
+                buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(),
+                buffer.getInt(), buffer.getInt(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getInt(), buffer.getInt(), buffer.get() != 0
+        );
+    }
+
+    private static void readCar(ByteBuffer buffer, WorldColumns.CarColumns cars, int row) {
+        readUnit(buffer, cars, row);
+        cars.width[row] = buffer.getDouble();
+        cars.height[row] = buffer.getDouble();
+        cars.playerId[row] = buffer.getLong();
+        cars.teammateIndex[row] = buffer.getInt();
+        cars.teammate[row] = buffer.get() != 0;
+        cars.type[row] = getEnumValue(CAR_TYPES, buffer.get());
+        cars.projectileCount[row] = buffer.getInt();
+        cars.nitroChargeCount[row] = buffer.getInt();
+        cars.oilCanisterCount[row] = buffer.getInt();
+        cars.remainingProjectileCooldownTicks[row] = buffer.getInt();
+        cars.remainingNitroCooldownTicks[row] = buffer.getInt();
+        cars.remainingOilCooldownTicks[row] = buffer.getInt();
+        cars.remainingNitroTicks[row] = buffer.getInt();
+        cars.remainingOiledTicks[row] = buffer.getInt();
+        cars.durability[row] = buffer.getDouble();
+        cars.enginePower[row] = buffer.getDouble();
+        cars.wheelTurn[row] = buffer.getDouble();
+        cars.nextWaypointX[row] = buffer.getInt();
+        cars.nextWaypointY[row] = buffer.getInt();
+        cars.finishedTrack[row] = buffer.get() != 0;
+    }
+
+    private static void readUnit(ByteBuffer buffer, WorldColumns.UnitColumns units, int row) {
+        units.id[row] = buffer.getLong();
+        units.mass[row] = buffer.getDouble();
+        units.x[row] = buffer.getDouble();
+        units.y[row] = buffer.getDouble();
+        units.speedX[row] = buffer.getDouble();
+        units.speedY[row] = buffer.getDouble();
+        units.angle[row] = buffer.getDouble();
+        units.angularSpeed[row] = buffer.getDouble();
+    }
+
     private Projectile[] readProjectiles() throws IOException {
         int projectileCount = readInt();
         if (projectileCount < 0) {
@@ -187,14 +664,60 @@ public final class RemoteProcessClient implements Closeable {
         return projectiles;
     }
 
+    private void readProjectiles(WorldColumns.ProjectileColumns projectiles) throws IOException {
+        projectiles.count = 0;
+        int projectileCount = readInt();
+
+        for (int projectileIndex = 0; projectileIndex < projectileCount; ++projectileIndex) {
+            if (readBoolean()) {
+                ensureReadable(PROJECTILE_SIZE_BYTES);
+                int row = projectiles.addRow();
+                readUnit(inputBuffer, projectiles, row);
+                projectiles.radius[row] = inputBuffer.getDouble();
+                projectiles.carId[row] = inputBuffer.getLong();
+                projectiles.playerId[row] = inputBuffer.getLong();
+                projectiles.type[row] = getEnumValue(PROJECTILE_TYPES, inputBuffer.get());
+            }
+        }
+    }
+
+    static Projectile[] readProjectiles(ByteBuffer buffer) {
+        int projectileCount = buffer.getInt();
+        if (projectileCount < 0) {
+            return null;
+        }
+
+        Projectile[] projectiles = new Projectile[projectileCount];
+
+        for (int projectileIndex = 0; projectileIndex < projectileCount; ++projectileIndex) {
+            projectiles[projectileIndex] = buffer.get() == 0 ? null : readProjectile(buffer);
+        }
+
+        return projectiles;
+    }
+
     private Projectile readProjectile() throws IOException {
         if (!readBoolean()) {
             return null;
         }
 
+        ensureReadable(PROJECTILE_SIZE_BYTES);
+        return unitPool == null ? readProjectile(inputBuffer) : readProjectile(inputBuffer, unitPool);
+    }
+
+    private static Projectile readProjectile(ByteBuffer buffer) {
         return new Projectile(
-                readLong(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(),
-                readDouble(), readDouble(), readLong(), readLong(), readEnum(ProjectileType.class)
+                buffer.getLong(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getLong(),
+                buffer.getLong(), getEnumValue(PROJECTILE_TYPES, buffer.get())
+        );
+    }
+
+    private static Projectile readProjectile(ByteBuffer buffer, UnitPool unitPool) {
+        return unitPool.obtainProjectile(
+                buffer.getLong(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getLong(),
+                buffer.getLong(), getEnumValue(PROJECTILE_TYPES, buffer.get())
         );
     }
 
@@ -213,14 +736,59 @@ public final class RemoteProcessClient implements Closeable {
         return bonuses;
     }
 
+    private void readBonuses(WorldColumns.BonusColumns bonuses) throws IOException {
+        bonuses.count = 0;
+        int bonusCount = readInt();
+
+        for (int bonusIndex = 0; bonusIndex < bonusCount; ++bonusIndex) {
+            if (readBoolean()) {
+                ensureReadable(BONUS_SIZE_BYTES);
+                int row = bonuses.addRow();
+                readUnit(inputBuffer, bonuses, row);
+                bonuses.width[row] = inputBuffer.getDouble();
+                bonuses.height[row] = inputBuffer.getDouble();
+                bonuses.type[row] = getEnumValue(BONUS_TYPES, inputBuffer.get());
+            }
+        }
+    }
+
+    static Bonus[] readBonuses(ByteBuffer buffer) {
+        int bonusCount = buffer.getInt();
+        if (bonusCount < 0) {
+            return null;
+        }
+
+        Bonus[] bonuses = new Bonus[bonusCount];
+
+        for (int bonusIndex = 0; bonusIndex < bonusCount; ++bonusIndex) {
+            bonuses[bonusIndex] = buffer.get() == 0 ? null : readBonus(buffer);
+        }
+
+        return bonuses;
+    }
+
     private Bonus readBonus() throws IOException {
         if (!readBoolean()) {
             return null;
         }
 
+        ensureReadable(BONUS_SIZE_BYTES);
+        return unitPool == null ? readBonus(inputBuffer) : readBonus(inputBuffer, unitPool);
+    }
+
+    private static Bonus readBonus(ByteBuffer buffer) {
         return new Bonus(
-                readLong(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(),
-                readDouble(), readDouble(), readDouble(), readEnum(BonusType.class)
+                buffer.getLong(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                getEnumValue(BONUS_TYPES, buffer.get())
+        );
+    }
+
+    private static Bonus readBonus(ByteBuffer buffer, UnitPool unitPool) {
+        return unitPool.obtainBonus(
+                buffer.getLong(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                getEnumValue(BONUS_TYPES, buffer.get())
         );
     }
 
@@ -239,14 +807,56 @@ public final class RemoteProcessClient implements Closeable {
         return oilSlicks;
     }
 
+    private void readOilSlicks(WorldColumns.OilSlickColumns oilSlicks) throws IOException {
+        oilSlicks.count = 0;
+        int oilSlickCount = readInt();
+
+        for (int oilSlickIndex = 0; oilSlickIndex < oilSlickCount; ++oilSlickIndex) {
+            if (readBoolean()) {
+                ensureReadable(OIL_SLICK_SIZE_BYTES);
+                int row = oilSlicks.addRow();
+                readUnit(inputBuffer, oilSlicks, row);
+                oilSlicks.radius[row] = inputBuffer.getDouble();
+                oilSlicks.remainingLifetime[row] = inputBuffer.getInt();
+            }
+        }
+    }
+
+    static OilSlick[] readOilSlicks(ByteBuffer buffer) {
+        int oilSlickCount = buffer.getInt();
+        if (oilSlickCount < 0) {
+            return null;
+        }
+
+        OilSlick[] oilSlicks = new OilSlick[oilSlickCount];
+
+        for (int oilSlickIndex = 0; oilSlickIndex < oilSlickCount; ++oilSlickIndex) {
+            oilSlicks[oilSlickIndex] = buffer.get() == 0 ? null : readOilSlick(buffer);
+        }
+
+        return oilSlicks;
+    }
+
     private OilSlick readOilSlick() throws IOException {
         if (!readBoolean()) {
             return null;
         }
 
+        ensureReadable(OIL_SLICK_SIZE_BYTES);
+        return unitPool == null ? readOilSlick(inputBuffer) : readOilSlick(inputBuffer, unitPool);
+    }
+
+    private static OilSlick readOilSlick(ByteBuffer buffer) {
         return new OilSlick(
-                readLong(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(), readDouble(),
-                readDouble(), readDouble(), readInt()
+                buffer.getLong(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getInt()
+        );
+    }
+
+    private static OilSlick readOilSlick(ByteBuffer buffer, UnitPool unitPool) {
+        return unitPool.obtainOilSlick(
+                buffer.getLong(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(),
+                buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getDouble(), buffer.getInt()
         );
     }
 
@@ -263,7 +873,7 @@ public final class RemoteProcessClient implements Closeable {
             return tilesXY;
         }
 
-        return tilesXY = readEnumArray2D(TileType.class);
+        return tilesXY = readEnumArray2D(TILE_TYPES);
     }
 
     private int[][] readWaypoints() throws IOException {
@@ -279,7 +889,61 @@ public final class RemoteProcessClient implements Closeable {
             return startingDirection;
         }
 
-        return startingDirection = readEnum(Direction.class);
+        return startingDirection = readEnum(DIRECTIONS);
+    }
+
+    private MessageType readMessageType() throws IOException {
+        return lastReadMessageType = readEnum(MESSAGE_TYPES);
+    }
+
+    private long getReadByteCount() {
+        return receivedByteCount - inputBuffer.remaining();
+    }
+
+    private long getWrittenByteCount() {
+        return sentByteCount + outputBuffer.position();
+    }
+
+    private void recordRead(long startByteCount) {
+        if (metrics != null && lastReadMessageType != null) {
+            metrics.recordRead(lastReadMessageType, getReadByteCount() - startByteCount);
+        }
+    }
+
+    private void recordWrite(MessageType messageType, long startByteCount) {
+        if (metrics != null) {
+            metrics.recordWrite(messageType, getWrittenByteCount() - startByteCount);
+        }
+    }
+
+    private long startDecode() {
+        if (metrics == null) {
+            return 0L;
+        }
+
+        decodeFillNanos = 0L;
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time since {@code startNanos} less the time spent refilling the input buffer meanwhile, which is
+     * waiting for the server rather than decoding.
+     */
+    private long recordDecode(WireMetrics.Section section, long startNanos) {
+        if (metrics == null) {
+            return 0L;
+        }
+
+        long finishNanos = System.nanoTime();
+        metrics.recordDecode(section, finishNanos - startNanos - decodeFillNanos);
+        decodeFillNanos = 0L;
+        return finishNanos;
+    }
+
+    private static void setSocketOptions(Socket socket) throws IOException {
+        socket.setSendBufferSize(BUFFER_SIZE_BYTES);
+        socket.setReceiveBufferSize(BUFFER_SIZE_BYTES);
+        socket.setTcpNoDelay(true);
     }
 
     private static void ensureMessageType(MessageType actualType, MessageType expectedType) {
@@ -290,80 +954,56 @@ public final class RemoteProcessClient implements Closeable {
         }
     }
 
-    private <E extends Enum> E readEnum(Class<E> enumClass) throws IOException {
-        byte ordinal = readBytes(1)[0];
-
-        E[] values = enumClass.getEnumConstants();
-        int valueCount = values.length;
-
-        for (int valueIndex = 0; valueIndex < valueCount; ++valueIndex) {
-            E value = values[valueIndex];
-            if (value.ordinal() == ordinal) {
-                return value;
-            }
-        }
-
-        return null;
+    private <E extends Enum> E readEnum(E[] values) throws IOException {
+        ensureReadable(1);
+        return getEnumValue(values, inputBuffer.get());
     }
 
     @SuppressWarnings("unchecked")
-    private <E extends Enum> E[] readEnumArray(Class<E> enumClass, int count) throws IOException {
-        byte[] bytes = readBytes(count);
-        E[] array = (E[]) Array.newInstance(enumClass, count);
+    private <E extends Enum> E[] readEnumArray(E[] values, int count) throws IOException {
+        E[] array = (E[]) Array.newInstance(values.getClass().getComponentType(), count);
 
-        E[] values = enumClass.getEnumConstants();
-        int valueCount = values.length;
-
-        Arrays.sort(values, new Comparator<E>() {
-            @Override
-            public int compare(E valueA, E valueB) {
-                return valueA.ordinal() - valueB.ordinal();
-            }
-        });
+        ensureReadable(count);
 
         for (int i = 0; i < count; ++i) {
-            byte ordinal = bytes[i];
-
-            if (ordinal >= 0 && ordinal < valueCount) {
-                array[i] = values[ordinal];
-            }
+            array[i] = getEnumValue(values, inputBuffer.get());
         }
 
         return array;
     }
 
-    private <E extends Enum> E[] readEnumArray(Class<E> enumClass) throws IOException {
+    private <E extends Enum> E[] readEnumArray(E[] values) throws IOException {
         int count = readInt();
         if (count < 0) {
             return null;
         }
 
-        return readEnumArray(enumClass, count);
+        return readEnumArray(values, count);
     }
 
     @SuppressWarnings("unchecked")
-    private <E extends Enum> E[][] readEnumArray2D(Class<E> enumClass) throws IOException {
+    private <E extends Enum> E[][] readEnumArray2D(E[] values) throws IOException {
         int count = readInt();
         if (count < 0) {
             return null;
         }
 
-        E[][] array;
-        try {
-            array = (E[][]) Array.newInstance(Class.forName("[L" + enumClass.getName() + ';'), count);
-        } catch (ClassNotFoundException e) {
-            throw new IllegalArgumentException("Can't load array class for " + enumClass + '.', e);
-        }
+        E[][] array = (E[][]) Array.newInstance(values.getClass(), count);
 
         for (int i = 0; i < count; ++i) {
-            array[i] = readEnumArray(enumClass);
+            array[i] = readEnumArray(values);
         }
 
         return array;
     }
 
+    private static <E extends Enum> E getEnumValue(E[] values, byte ordinal) {
+        return ordinal >= 0 && ordinal < values.length ? values[ordinal] : null;
+    }
+
     private <E extends Enum> void writeEnum(E value) throws IOException {
-        writeBytes(new byte[]{value == null ? (byte) -1 : (byte) value.ordinal()});
+        ensureWritable(1);
+        outputBuffer.put(value == null ? (byte) -1 : (byte) value.ordinal());
     }
 
     private String readString() throws IOException {
@@ -372,7 +1012,25 @@ public final class RemoteProcessClient implements Closeable {
             return null;
         }
 
-        return new String(readBytes(length), StandardCharsets.UTF_8);
+        if (length > stringBuffer.length) {
+            stringBuffer = new byte[StrictMath.max(length, stringBuffer.length << 1)];
+        }
+
+        readBytes(stringBuffer, 0, length);
+        return new String(stringBuffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+
+        String value = new String(
+                buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8
+        );
+        buffer.position(buffer.position() + length);
+        return value;
     }
 
     private void writeString(String value) throws IOException {
@@ -388,15 +1046,16 @@ public final class RemoteProcessClient implements Closeable {
     }
 
     private boolean readBoolean() throws IOException {
-        return readBytes(1)[0] != 0;
+        ensureReadable(1);
+        return inputBuffer.get() != 0;
     }
 
     private boolean[] readBooleanArray(int count) throws IOException {
-        byte[] bytes = readBytes(count);
+        ensureReadable(count);
         boolean[] array = new boolean[count];
 
         for (int i = 0; i < count; ++i) {
-            array[i] = bytes[i] != 0;
+            array[i] = inputBuffer.get() != 0;
         }
 
         return array;
@@ -427,21 +1086,21 @@ public final class RemoteProcessClient implements Closeable {
     }
 
     private void writeBoolean(boolean value) throws IOException {
-        writeBytes(new byte[]{value ? (byte) 1 : (byte) 0});
+        ensureWritable(1);
+        outputBuffer.put(value ? (byte) 1 : (byte) 0);
     }
 
     private int readInt() throws IOException {
-        return ByteBuffer.wrap(readBytes(INTEGER_SIZE_BYTES)).order(PROTOCOL_BYTE_ORDER).getInt();
+        ensureReadable(INTEGER_SIZE_BYTES);
+        return inputBuffer.getInt();
     }
 
     private int[] readIntArray(int count) throws IOException {
-        byte[] bytes = readBytes(count * INTEGER_SIZE_BYTES);
+        ensureReadable(count * INTEGER_SIZE_BYTES);
         int[] array = new int[count];
 
         for (int i = 0; i < count; ++i) {
-            array[i] = ByteBuffer.wrap(
-                    bytes, i * INTEGER_SIZE_BYTES, INTEGER_SIZE_BYTES
-            ).order(PROTOCOL_BYTE_ORDER).getInt();
+            array[i] = inputBuffer.getInt();
         }
 
         return array;
@@ -472,52 +1131,163 @@ public final class RemoteProcessClient implements Closeable {
     }
 
     private void writeInt(int value) throws IOException {
-        writeBytes(ByteBuffer.allocate(INTEGER_SIZE_BYTES).order(PROTOCOL_BYTE_ORDER).putInt(value).array());
+        ensureWritable(INTEGER_SIZE_BYTES);
+        outputBuffer.putInt(value);
     }
 
     private long readLong() throws IOException {
-        return ByteBuffer.wrap(readBytes(LONG_SIZE_BYTES)).order(PROTOCOL_BYTE_ORDER).getLong();
+        ensureReadable(LONG_SIZE_BYTES);
+        return inputBuffer.getLong();
     }
 
     private void writeLong(long value) throws IOException {
-        writeBytes(ByteBuffer.allocate(LONG_SIZE_BYTES).order(PROTOCOL_BYTE_ORDER).putLong(value).array());
+        ensureWritable(LONG_SIZE_BYTES);
+        outputBuffer.putLong(value);
     }
 
     private double readDouble() throws IOException {
-        return Double.longBitsToDouble(readLong());
+        ensureReadable(LONG_SIZE_BYTES);
+        return inputBuffer.getDouble();
     }
 
     private void writeDouble(double value) throws IOException {
-        writeLong(Double.doubleToLongBits(value));
+        ensureWritable(LONG_SIZE_BYTES);
+        outputBuffer.putDouble(value);
     }
 
-    private byte[] readBytes(int byteCount) throws IOException {
-        byte[] bytes = new byte[byteCount];
-        int offset = 0;
-        int readByteCount;
+    private void readBytes(byte[] bytes, int offset, int byteCount) throws IOException {
+        while (byteCount > 0) {
+            if (!inputBuffer.hasRemaining()) {
+                refillInputBuffer(byteCount);
+            }
+
+            int chunkByteCount = StrictMath.min(byteCount, inputBuffer.remaining());
+            inputBuffer.get(bytes, offset, chunkByteCount);
+            offset += chunkByteCount;
+            byteCount -= chunkByteCount;
+        }
+    }
+
+    private void ensureReadable(int byteCount) throws IOException {
+        if (inputBuffer.remaining() < byteCount) {
+            if (byteCount > inputBuffer.capacity()) {
+                throw new IOException(String.format(
+                        "Can't buffer %d bytes from input stream [capacity=%d].", byteCount, inputBuffer.capacity()
+                ));
+            }
 
-        while (offset < byteCount && (readByteCount = inputStream.read(bytes, offset, byteCount - offset)) != -1) {
-            offset += readByteCount;
+            refillInputBuffer(byteCount);
         }
+    }
 
-        if (offset != byteCount) {
-            throw new IOException(String.format("Can't read %d bytes from input stream.", byteCount));
+    /**
+     * Fills the input buffer and, with metrics, adds the time spent to {@link #decodeFillNanos}, so that waiting for
+     * the server is not counted as decoding.
+     */
+    private void refillInputBuffer(int byteCount) throws IOException {
+        if (metrics == null) {
+            fillInputBuffer(byteCount);
+        } else {
+            long startNanos = System.nanoTime();
+            fillInputBuffer(byteCount);
+            decodeFillNanos += System.nanoTime() - startNanos;
         }
+    }
 
-        return bytes;
+    private void fillInputBuffer(int byteCount) throws IOException {
+        inputBuffer.compact();
+        int startPosition = inputBuffer.position();
+
+        try {
+            int minPosition = StrictMath.min(byteCount, inputBuffer.capacity());
+
+            if (socketChannel == null) {
+                byte[] bytes = inputBuffer.array();
+                int readByteCount;
+
+                while (inputBuffer.position() < minPosition && (readByteCount = inputStream.read(
+                        bytes, inputBuffer.arrayOffset() + inputBuffer.position(), inputBuffer.remaining()
+                )) != -1) {
+                    inputBuffer.position(inputBuffer.position() + readByteCount);
+                }
+            } else {
+                while (inputBuffer.position() < minPosition && socketChannel.read(inputBuffer) != -1) {
+                    // Keep filling: a single read usually brings the whole message.
+                }
+            }
+
+            receivedByteCount += inputBuffer.position() - startPosition;
+
+            if (journal != null) {
+                inputJournalView.limit(inputBuffer.position());
+                inputJournalView.position(startPosition);
+                journal.appendInput(inputJournalView);
+            }
+
+            if (inputBuffer.position() < minPosition) {
+                throw new IOException(String.format("Can't read %d bytes from input stream.", byteCount));
+            }
+        } finally {
+            inputBuffer.flip();
+        }
     }
 
     private void writeBytes(byte[] bytes) throws IOException {
-        outputStreamBuffer.write(bytes);
+        int offset = 0;
+
+        while (offset < bytes.length) {
+            if (!outputBuffer.hasRemaining()) {
+                drainOutputBuffer();
+            }
+
+            int chunkByteCount = StrictMath.min(bytes.length - offset, outputBuffer.remaining());
+            outputBuffer.put(bytes, offset, chunkByteCount);
+            offset += chunkByteCount;
+        }
+    }
+
+    private void ensureWritable(int byteCount) throws IOException {
+        if (outputBuffer.remaining() < byteCount) {
+            if (byteCount > outputBuffer.capacity()) {
+                throw new IOException(String.format(
+                        "Can't buffer %d bytes for output stream [capacity=%d].", byteCount, outputBuffer.capacity()
+                ));
+            }
+
+            drainOutputBuffer();
+        }
+    }
+
+    private void drainOutputBuffer() throws IOException {
+        sentByteCount += outputBuffer.position();
+
+        if (socketChannel == null) {
+            outputStream.write(outputBuffer.array(), outputBuffer.arrayOffset(), outputBuffer.position());
+        } else {
+            outputBuffer.flip();
+
+            while (outputBuffer.hasRemaining()) {
+                socketChannel.write(outputBuffer);
+            }
+        }
+
+        outputBuffer.clear();
     }
 
     private void flush() throws IOException {
-        outputStream.write(outputStreamBuffer.toByteArray());
-        outputStreamBuffer.reset();
-        outputStream.flush();
+        drainOutputBuffer();
+
+        if (outputStream != null) {
+            outputStream.flush();
+        }
+    }
+
+    public enum Transport {
+        STREAM,
+        CHANNEL
     }
 
-    private enum MessageType {
+    enum MessageType {
         UNKNOWN,
         GAME_OVER,
         AUTHENTICATION_TOKEN,
@@ -0,0 +1,302 @@
+import model.PlayerContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * Stand-in for the game server that plays a {@link TickJournal} recording back to a {@link Runner} and measures how
+ * long the runner takes to answer each player context. A runner that asks for the compact protocol of
+ * {@link DeltaCodec} gets the recorded player contexts transcoded to it.
+ * <p>
+ * Usage: {@code ReplayServer <journal directory> [port] [game count]}.
+ */
+public final class ReplayServer {
+    private static final int DEFAULT_PORT = 31001;
+    private static final int BUFFER_SIZE_BYTES = 1 << 20;
+    private static final int TEAM_SIZE_MESSAGE_SIZE_BYTES = 1 + Integer.SIZE / Byte.SIZE;
+    private static final int MOVE_SIZE_BYTES = 2 * Long.SIZE / Byte.SIZE + 4;
+
+    private final ByteBuffer input;
+    private final ByteBuffer recordedMoves;
+    private final long[] inputOffsets;
+    private final long[] movesOffsets;
+
+    private ByteBuffer deltaInput;
+    private long[] deltaInputOffsets;
+
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayServer <journal directory> [port] [game count]");
+            System.exit(1);
+        }
+
+        ReplayServer server = new ReplayServer(new File(args[0]));
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT;
+        int gameCount = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.socket().bind(new InetSocketAddress(port));
+
+            for (int gameIndex = 0; gameIndex < gameCount; ++gameIndex) {
+                SocketChannel channel = serverChannel.accept();
+                try {
+                    channel.socket().setTcpNoDelay(true);
+                    server.play(channel);
+                } finally {
+                    channel.close();
+                }
+            }
+        } finally {
+            serverChannel.close();
+        }
+    }
+
+    public ReplayServer(File journalDirectory) throws IOException {
+        long[] lengths = TickJournal.readLengths(journalDirectory);
+
+        input = map(new File(journalDirectory, TickJournal.INPUT_FILE_NAME), lengths[0]);
+        recordedMoves = map(new File(journalDirectory, TickJournal.MOVES_FILE_NAME), lengths[1]);
+
+        ByteBuffer index = map(new File(journalDirectory, TickJournal.INDEX_FILE_NAME), lengths[2]);
+        index.position(TickJournal.HEADER_SIZE_BYTES);
+        int messageCount = index.remaining() / TickJournal.INDEX_ENTRY_SIZE_BYTES;
+        inputOffsets = new long[messageCount];
+        movesOffsets = new long[messageCount];
+
+        for (int messageIndex = 0; messageIndex < messageCount; ++messageIndex) {
+            inputOffsets[messageIndex] = index.getLong();
+            movesOffsets[messageIndex] = index.getLong();
+        }
+
+        if (messageCount == 0 || input.limit() < TEAM_SIZE_MESSAGE_SIZE_BYTES) {
+            throw new IOException("Journal '" + journalDirectory + "' contains no player context.");
+        }
+    }
+
+    public void play(SocketChannel channel) throws IOException {
+        receiveMessage(channel, RemoteProcessClient.MessageType.AUTHENTICATION_TOKEN);
+        receiveFully(channel, receiveBuffer.getInt(receiveFully(channel, Integer.SIZE / Byte.SIZE)));
+        send(channel, input, 0, TEAM_SIZE_MESSAGE_SIZE_BYTES);
+
+        receiveMessage(channel, RemoteProcessClient.MessageType.PROTOCOL_VERSION);
+        int protocolVersion = receiveBuffer.getInt(receiveFully(channel, Integer.SIZE / Byte.SIZE));
+        send(channel, input, TEAM_SIZE_MESSAGE_SIZE_BYTES, (int) inputOffsets[0]);
+
+        if (protocolVersion == DeltaCodec.PROTOCOL_VERSION && deltaInput == null) {
+            transcodeToDeltaProtocol();
+        }
+
+        ByteBuffer messages = protocolVersion == DeltaCodec.PROTOCOL_VERSION ? deltaInput : input;
+        long[] messageOffsets = protocolVersion == DeltaCodec.PROTOCOL_VERSION ? deltaInputOffsets : inputOffsets;
+
+        int messageCount = inputOffsets.length;
+        long[] latenciesNanos = new long[messageCount];
+        int tickCount = 0;
+        int changedMoveCount = 0;
+
+        for (int messageIndex = 0; messageIndex < messageCount; ++messageIndex) {
+            int from = (int) messageOffsets[messageIndex];
+            int to = messageIndex + 1 < messageCount ? (int) messageOffsets[messageIndex + 1] : messages.limit();
+
+            if (messages.get(from) != (byte) RemoteProcessClient.MessageType.PLAYER_CONTEXT.ordinal()) {
+                send(channel, messages, from, to);
+                break;
+            }
+
+            long startTimeNanos = System.nanoTime();
+            send(channel, messages, from, to);
+            receiveMoves(channel);
+            latenciesNanos[tickCount++] = System.nanoTime() - startTimeNanos;
+
+            if (!isRecordedMoves(messageIndex)) {
+                ++changedMoveCount;
+            }
+
+            if (messageIndex + 1 == messageCount) {
+                sendGameOver(channel);
+            }
+        }
+
+        printLatencies(Arrays.copyOf(latenciesNanos, tickCount), changedMoveCount);
+    }
+
+    /**
+     * Decodes the recorded player contexts and encodes them again with a {@link DeltaCodec}. Messages other than
+     * player contexts are copied as is.
+     */
+    private void transcodeToDeltaProtocol() throws IOException {
+        byte[] inputBytes = new byte[input.limit()];
+        input.duplicate().get(inputBytes);
+
+        RemoteProcessClient client = new RemoteProcessClient(new ByteArrayInputStream(inputBytes), null);
+        DeltaCodec deltaCodec = new DeltaCodec();
+
+        int messageCount = inputOffsets.length;
+        deltaInput = ByteBuffer.allocate(input.limit()).order(ByteOrder.LITTLE_ENDIAN);
+        deltaInputOffsets = new long[messageCount];
+
+        try {
+            client.readTeamSize();
+            client.readGameContext();
+
+            for (int messageIndex = 0; messageIndex < messageCount; ++messageIndex) {
+                int from = (int) inputOffsets[messageIndex];
+                int to = messageIndex + 1 < messageCount ? (int) inputOffsets[messageIndex + 1] : input.limit();
+                deltaInputOffsets[messageIndex] = deltaInput.position();
+
+                if (input.get(from) != (byte) RemoteProcessClient.MessageType.PLAYER_CONTEXT.ordinal()) {
+                    deltaInput.put(inputBytes, from, to - from);
+                    break;
+                }
+
+                PlayerContext playerContext = client.readPlayerContext();
+                if (playerContext == null) {
+                    deltaInput.put(inputBytes, from, to - from);
+                    continue;
+                }
+
+                deltaInput.put((byte) RemoteProcessClient.MessageType.PLAYER_CONTEXT.ordinal());
+                deltaInput.put((byte) 1);
+
+                int payloadSizePosition = deltaInput.position();
+                deltaInput.putInt(0);
+                deltaCodec.encode(playerContext, deltaInput);
+                deltaInput.putInt(
+                        payloadSizePosition, deltaInput.position() - payloadSizePosition - Integer.SIZE / Byte.SIZE
+                );
+            }
+        } finally {
+            client.close();
+        }
+
+        deltaInput.flip();
+        System.out.printf(
+                "Transcoded %d bytes of player contexts to %d bytes.%n", input.limit() - inputOffsets[0], deltaInput.limit()
+        );
+    }
+
+    private void receiveMoves(SocketChannel channel) throws IOException {
+        receiveMessage(channel, RemoteProcessClient.MessageType.MOVES);
+        int moveCount = receiveBuffer.getInt(receiveFully(channel, Integer.SIZE / Byte.SIZE));
+
+        for (int moveIndex = 0; moveIndex < moveCount; ++moveIndex) {
+            if (receiveBuffer.get(receiveFully(channel, 1)) != 0) {
+                receiveFully(channel, MOVE_SIZE_BYTES);
+            }
+        }
+    }
+
+    private boolean isRecordedMoves(int messageIndex) {
+        ByteBuffer moves = receiveBuffer.duplicate();
+        moves.flip();
+
+        ByteBuffer expectedMoves = recordedMoves.duplicate();
+        expectedMoves.limit(messageIndex + 1 < movesOffsets.length
+                ? (int) movesOffsets[messageIndex + 1]
+                : recordedMoves.limit());
+        expectedMoves.position((int) movesOffsets[messageIndex]);
+
+        return moves.equals(expectedMoves);
+    }
+
+    private void receiveMessage(SocketChannel channel, RemoteProcessClient.MessageType expectedType)
+            throws IOException {
+        receiveBuffer.clear();
+        byte actualOrdinal = receiveBuffer.get(receiveFully(channel, 1));
+
+        if (actualOrdinal != (byte) expectedType.ordinal()) {
+            throw new IOException(String.format(
+                    "Received wrong message [actual=%d, expected=%s].", actualOrdinal, expectedType
+            ));
+        }
+    }
+
+    /**
+     * Appends the next {@code byteCount} bytes of the current message to {@code receiveBuffer}.
+     *
+     * @return offset of the first appended byte
+     */
+    private int receiveFully(SocketChannel channel, int byteCount) throws IOException {
+        int offset = receiveBuffer.position();
+        receiveBuffer.limit(offset + byteCount);
+
+        while (receiveBuffer.hasRemaining()) {
+            if (channel.read(receiveBuffer) == -1) {
+                throw new IOException(String.format("Can't read %d bytes from runner.", byteCount));
+            }
+        }
+
+        return offset;
+    }
+
+    private static void send(SocketChannel channel, ByteBuffer messages, int from, int to) throws IOException {
+        ByteBuffer message = messages.duplicate();
+        message.limit(to);
+        message.position(from);
+
+        while (message.hasRemaining()) {
+            channel.write(message);
+        }
+    }
+
+    private static void sendGameOver(SocketChannel channel) throws IOException {
+        ByteBuffer message = ByteBuffer.allocate(1);
+        message.put(0, (byte) RemoteProcessClient.MessageType.GAME_OVER.ordinal());
+
+        while (message.hasRemaining()) {
+            channel.write(message);
+        }
+    }
+
+    private static void printLatencies(long[] latenciesNanos, int changedMoveCount) {
+        int tickCount = latenciesNanos.length;
+        if (tickCount == 0) {
+            System.out.println("Replayed 0 ticks.");
+            return;
+        }
+
+        long totalNanos = 0L;
+        for (long latencyNanos : latenciesNanos) {
+            totalNanos += latencyNanos;
+        }
+
+        Arrays.sort(latenciesNanos);
+
+        System.out.printf(
+                "Replayed %d ticks [mean=%.1fus, p50=%.1fus, p90=%.1fus, p99=%.1fus, max=%.1fus, changedMoves=%d].%n",
+                tickCount, totalNanos / 1000.0D / tickCount, getPercentile(latenciesNanos, 0.50D) / 1000.0D,
+                getPercentile(latenciesNanos, 0.90D) / 1000.0D, getPercentile(latenciesNanos, 0.99D) / 1000.0D,
+                latenciesNanos[tickCount - 1] / 1000.0D, changedMoveCount
+        );
+    }
+
+    private static long getPercentile(long[] sortedValues, double quantile) {
+        return sortedValues[StrictMath.min((int) (quantile * sortedValues.length), sortedValues.length - 1)];
+    }
+
+    private static MappedByteBuffer map(File file, long length) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, length);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+}
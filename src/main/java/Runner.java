@@ -1,10 +1,19 @@
 import model.*;
 
+import java.io.File;
 import java.io.IOException;
 
 public final class Runner {
     private final RemoteProcessClient remoteProcessClient;
     private final String token;
+    private final RunnerSettings settings;
+    private final UnitPool unitPool;
+    private final MapCache mapCache;
+    private final WireMetrics wireMetrics;
+    private TickLatencies tickLatencies;
+    private AllocationMeter allocationMeter;
+    private ChromeTrace chromeTrace;
+    private long tickStartNanos;
 
     public static void main(String[] args) throws IOException {
         if (args.length == 3) {
@@ -15,12 +24,75 @@ public final class Runner {
     }
 
     private Runner(String[] args) throws IOException {
-        remoteProcessClient = new RemoteProcessClient(args[0], Integer.parseInt(args[1]));
-        token = args[2];
+        this(args[0], Integer.parseInt(args[1]), args[2], RunnerSettings.fromSystemProperties());
+    }
+
+    Runner(String host, int port, String token, RunnerSettings settings) throws IOException {
+        if (settings.isUnitPool() && settings.isMoveBudget()) {
+            throw new IllegalStateException(
+                    "Unit pool can't be used with a move budget: late strategy calls would read recycled units."
+            );
+        }
+
+        if (settings.isLazyWorldDecoding() && settings.isMoveBudget()) {
+            throw new IllegalStateException(
+                    "Lazy world decoding can't be used with a move budget: late strategy calls would decode reused "
+                            + "raw sections."
+            );
+        }
+
+        remoteProcessClient = new RemoteProcessClient(host, port, settings.getTransport());
+        this.token = token;
+        this.settings = settings;
+
+        remoteProcessClient.setLazyWorldDecoding(settings.isLazyWorldDecoding());
+        remoteProcessClient.setDeltaProtocol(settings.isDeltaProtocol());
+
+        unitPool = settings.newUnitPool();
+        remoteProcessClient.setUnitPool(unitPool);
+
+        if (settings.getJournalDirectory() != null) {
+            remoteProcessClient.startJournal(settings.getJournalDirectory());
+        }
+
+        mapCache = settings.getMapCacheDirectory() == null ? null : new MapCache(settings.getMapCacheDirectory());
+
+        wireMetrics = settings.isMetrics() ? new WireMetrics() : null;
+        remoteProcessClient.setMetrics(wireMetrics);
+    }
+
+    /**
+     * Plays the warm-up journal of {@code settings}, if any, before the server is told that the runner is ready.
+     */
+    static void warmUp(RunnerSettings settings) throws IOException {
+        if (settings.getWarmUpJournalDirectory() == null) {
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+
+        WarmUp warmUp = new WarmUp(settings.getWarmUpJournalDirectory());
+        warmUp.setLazyWorldDecoding(settings.isLazyWorldDecoding());
+        warmUp.setUnitPool(settings.newUnitPool());
+        int tickCount = warmUp.run(settings.getWarmUpTickCount(), settings.getWarmUpNanos());
+
+        System.out.printf("Warmed up on %d ticks in %d ms.%n", tickCount, (System.nanoTime() - startNanos) / 1000000L);
     }
 
     public void run() throws IOException {
+        MapCache.Entry mapCacheEntry = null;
+        DeadlineMoveExecutor deadlineMoveExecutor = null;
+        ParallelMoveExecutor parallelMoveExecutor = null;
+        Precomputations precomputations = new Precomputations();
+        BackgroundPlanner<?>[] planners = null;
+        SpeculativePlanner<?>[] speculativePlanners = null;
+        String mapName = null;
+
         try {
+            // Loading the tracing backend takes tens of milliseconds, which must not fall on the first tick.
+            Trace.isRecording();
+
+            warmUp(settings);
             remoteProcessClient.writeToken(token);
             int teamSize = remoteProcessClient.readTeamSize();
             remoteProcessClient.writeProtocolVersion();
@@ -32,30 +104,444 @@ public final class Runner {
                 strategies[strategyIndex] = new MyStrategy();
             }
 
+            if (settings.getChromeTraceDirectory() != null) {
+                chromeTrace = new ChromeTrace(settings.getChromeTraceCapacity());
+                precomputations.setChromeTrace(chromeTrace);
+            }
+
+            TeamBlackboard teamBlackboard = new TeamBlackboard();
+
+            for (Strategy strategy : strategies) {
+                if (strategy instanceof BlackboardAware) {
+                    ((BlackboardAware) strategy).setTeamBlackboard(teamBlackboard);
+                }
+
+                if (strategy instanceof PrecomputeAware) {
+                    ((PrecomputeAware) strategy).registerPrecomputations(precomputations);
+                }
+            }
+
+            planners = new BackgroundPlanner<?>[teamSize];
+
+            for (int strategyIndex = 0; strategyIndex < teamSize; ++strategyIndex) {
+                if (strategies[strategyIndex] instanceof PlannerAware) {
+                    planners[strategyIndex] = ((PlannerAware) strategies[strategyIndex]).getBackgroundPlanner();
+
+                    if (planners[strategyIndex] != null) {
+                        planners[strategyIndex].setChromeTrace(chromeTrace);
+                        planners[strategyIndex].start("planner-" + strategyIndex);
+                    }
+                }
+            }
+
+            speculativePlanners = new SpeculativePlanner<?>[teamSize];
+            boolean speculating = false;
+
+            for (int strategyIndex = 0; strategyIndex < teamSize; ++strategyIndex) {
+                if (strategies[strategyIndex] instanceof SpeculationAware) {
+                    speculativePlanners[strategyIndex] = ((SpeculationAware) strategies[strategyIndex])
+                            .getSpeculativePlanner();
+
+                    if (speculativePlanners[strategyIndex] != null) {
+                        speculativePlanners[strategyIndex].start("speculation-" + strategyIndex);
+                        speculating = true;
+                    }
+                }
+            }
+
+            if (unitPool != null) {
+                ensureNoBackgroundReaders("Unit pool", "read recycled units", precomputations, planners);
+            }
+
+            if (settings.isLazyWorldDecoding()) {
+                ensureNoBackgroundReaders(
+                        "Lazy world decoding", "decode reused raw sections", precomputations, planners
+                );
+            }
+
+            if (settings.isMoveBudget()) {
+                deadlineMoveExecutor = new DeadlineMoveExecutor(strategies, settings.getMoveBudgetNanos());
+                deadlineMoveExecutor.setChromeTrace(chromeTrace);
+            }
+
+            boolean parallelTeammates = teamSize > 1 && settings.isParallelTeammates();
+            if (parallelTeammates && deadlineMoveExecutor == null) {
+                parallelMoveExecutor = new ParallelMoveExecutor(strategies);
+                parallelMoveExecutor.setChromeTrace(chromeTrace);
+            }
+
+            if (settings.isLatencies()) {
+                tickLatencies = new TickLatencies(teamSize);
+            }
+
+            if (settings.isAllocations()) {
+                try {
+                    allocationMeter = new AllocationMeter(teamSize);
+                } catch (UnsupportedOperationException e) {
+                    System.err.println("Ignoring runner.allocations: " + e.getMessage());
+                }
+            }
+
             PlayerContext playerContext;
 
-            while ((playerContext = remoteProcessClient.readPlayerContext()) != null) {
+            while ((playerContext = readPlayerContext()) != null) {
                 Car[] playerCars = playerContext.getCars();
                 if (playerCars == null || playerCars.length != teamSize) {
                     break;
                 }
 
+                int tick = playerContext.getWorld() == null ? -1 : playerContext.getWorld().getTick();
+
+                if (mapName == null && playerContext.getWorld() != null) {
+                    mapName = playerContext.getWorld().getMapName();
+                    precomputations.start(game, playerContext.getWorld());
+                }
+
+                if (mapCache != null && mapCacheEntry == null && playerContext.getWorld() != null) {
+                    mapCacheEntry = mapCache.open(playerContext.getWorld());
+
+                    for (Strategy strategy : strategies) {
+                        if (strategy instanceof MapCacheAware) {
+                            ((MapCacheAware) strategy).setMapCacheEntry(mapCacheEntry);
+                        }
+                    }
+                }
+
+                for (Car playerCar : playerCars) {
+                    BackgroundPlanner<?> planner = planners[playerCar.getTeammateIndex()];
+                    if (planner != null) {
+                        planner.update(playerCar, playerContext.getWorld(), game);
+                    }
+
+                    SpeculativePlanner<?> speculativePlanner = speculativePlanners[playerCar.getTeammateIndex()];
+                    if (speculativePlanner != null) {
+                        speculativePlanner.resolve(playerCar, playerContext.getWorld());
+                    }
+                }
+
                 Move[] moves = new Move[teamSize];
 
                 for (int carIndex = 0; carIndex < teamSize; ++carIndex) {
-                    Car playerCar = playerCars[carIndex];
+                    moves[carIndex] = new Move();
+                }
+
+                if (parallelTeammates) {
+                    if (deadlineMoveExecutor == null) {
+                        parallelMoveExecutor.moveAll(playerCars, playerContext.getWorld(), game, moves);
+                    } else {
+                        deadlineMoveExecutor.moveAll(playerCars, playerContext.getWorld(), game, moves);
+                    }
+
+                    if (tickLatencies != null) {
+                        for (Car playerCar : playerCars) {
+                            int teammateIndex = playerCar.getTeammateIndex();
+                            tickLatencies.getStrategy(teammateIndex).record(deadlineMoveExecutor == null
+                                    ? parallelMoveExecutor.getMoveNanos(teammateIndex)
+                                    : deadlineMoveExecutor.getMoveNanos(teammateIndex));
+                        }
+                    }
+                } else {
+                    for (int carIndex = 0; carIndex < teamSize; ++carIndex) {
+                        Car playerCar = playerCars[carIndex];
+                        Move move = moves[carIndex];
+
+                        if (allocationMeter != null) {
+                            allocationMeter.startMove();
+                        }
+
+                        long startNanos = tickLatencies == null && chromeTrace == null ? 0L : System.nanoTime();
+                        if (deadlineMoveExecutor == null) {
+                            Trace.Span span = Trace.beginPhase(
+                                    Trace.Phase.STRATEGY_MOVE, tick, playerCar.getTeammateIndex()
+                            );
+                            try {
+                                strategies[playerCar.getTeammateIndex()].move(
+                                        playerCar, playerContext.getWorld(), game, move
+                                );
+                            } finally {
+                                span.close();
+                            }
+
+                            if (chromeTrace != null) {
+                                chromeTrace.record(
+                                        ChromeTrace.STRATEGY_CATEGORY, "move", startNanos, tick,
+                                        playerCar.getTeammateIndex()
+                                );
+                            }
+                        } else {
+                            deadlineMoveExecutor.move(playerCar, playerContext.getWorld(), game, move);
+                        }
+
+                        if (tickLatencies != null) {
+                            tickLatencies.getStrategy(playerCar.getTeammateIndex()).record(
+                                    System.nanoTime() - startNanos
+                            );
+                        }
+
+                        if (allocationMeter != null) {
+                            allocationMeter.endMove(playerCar.getTeammateIndex());
+                        }
+                    }
+                }
+
+                writeMoves(moves, tick);
+
+                if (speculating) {
+                    speculate(speculativePlanners, playerCars, playerContext.getWorld(), game, moves);
+                }
+            }
+
+            if (tickLatencies != null) {
+                tickLatencies.print(System.out, mapName);
+            }
+
+            if (allocationMeter != null) {
+                allocationMeter.print(System.out, mapName);
+            }
+
+            if (deadlineMoveExecutor != null && deadlineMoveExecutor.getMissedDeadlineCount() > 0L) {
+                System.out.printf(
+                        "Missed %d of %d move deadlines.%n",
+                        deadlineMoveExecutor.getMissedDeadlineCount(), deadlineMoveExecutor.getCallCount()
+                );
+            }
+
+            if (wireMetrics != null) {
+                System.out.println(wireMetrics.getSnapshot());
+            }
 
-                    Move move = new Move();
-                    moves[carIndex] = move;
-                    strategies[playerCar.getTeammateIndex()].move(
-                            playerCar, playerContext.getWorld(), game, move
+            for (Precomputations.Result<?> result : precomputations.getResults()) {
+                if (result.getFailure() != null) {
+                    System.err.printf("Precomputation '%s' failed:%n", result.getName());
+                    result.getFailure().printStackTrace();
+                }
+            }
+
+            for (int strategyIndex = 0; strategyIndex < teamSize; ++strategyIndex) {
+                if (planners[strategyIndex] != null && planners[strategyIndex].getFailure() != null) {
+                    System.err.printf("Background planner of strategy #%d failed:%n", strategyIndex);
+                    planners[strategyIndex].getFailure().printStackTrace();
+                }
+
+                if (speculativePlanners[strategyIndex] != null) {
+                    System.out.printf(
+                            "Speculations of strategy #%d: %d hits, %d misses.%n", strategyIndex,
+                            speculativePlanners[strategyIndex].getHitCount(),
+                            speculativePlanners[strategyIndex].getMissCount()
                     );
                 }
+            }
+        } finally {
+            try {
+                if (mapCacheEntry != null) {
+                    saveMapCacheEntry(mapCacheEntry);
+                }
+            } finally {
+                precomputations.close();
+
+                if (allocationMeter != null) {
+                    allocationMeter.close();
+                }
+
+                if (planners != null) {
+                    for (BackgroundPlanner<?> planner : planners) {
+                        if (planner != null) {
+                            planner.close();
+                        }
+                    }
+                }
+
+                if (speculativePlanners != null) {
+                    for (SpeculativePlanner<?> speculativePlanner : speculativePlanners) {
+                        if (speculativePlanner != null) {
+                            speculativePlanner.close();
+                        }
+                    }
+                }
+
+                if (deadlineMoveExecutor != null) {
+                    deadlineMoveExecutor.close();
+                }
+
+                if (parallelMoveExecutor != null) {
+                    parallelMoveExecutor.close();
+                }
+
+                try {
+                    remoteProcessClient.close();
+                } finally {
+                    // Written last, when the background threads that record slices have been stopped, and also
+                    // after a failed game.
+                    if (chromeTrace != null) {
+                        writeChromeTrace(mapName);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports a failure to save instead of throwing it, so that it does not hide the failure of the game.
+     */
+    private static void saveMapCacheEntry(MapCache.Entry mapCacheEntry) {
+        try {
+            mapCacheEntry.save();
+        } catch (IOException e) {
+            System.err.println("Can't save map cache entry '" + mapCacheEntry.getMapName() + "': " + e);
+        }
+    }
+
+    private void writeChromeTrace(String mapName) {
+        try {
+            File chromeTraceFile = File.createTempFile(
+                    mapName == null ? "trace-" : "trace-" + mapName + '-', ".json",
+                    settings.getChromeTraceDirectory()
+            );
+            System.out.printf(
+                    "Wrote %d trace slices to '%s'.%n", chromeTrace.write(chromeTraceFile), chromeTraceFile
+            );
+        } catch (IOException e) {
+            System.err.println("Can't write trace: " + e);
+        }
+    }
 
-                remoteProcessClient.writeMoves(moves);
+    /**
+     * Units from a {@link UnitPool} are recycled on the next tick, and the raw sections of a {@link LazyWorld} are
+     * overwritten two ticks later, so with either feature no thread may read a world after its tick is over.
+     * Speculative planners are not checked: they only get worlds from {@link WorldPredictor}, which copies every unit
+     * on the runner thread.
+     *
+     * @param feature name of the feature, for the message
+     * @param hazard  what a background reader would do, for the message
+     * @throws IllegalStateException if a strategy has work that reads the world in the background
+     */
+    private static void ensureNoBackgroundReaders(
+            String feature, String hazard, Precomputations precomputations, BackgroundPlanner<?>[] planners) {
+        String backgroundReader;
+
+        if (!precomputations.isEmpty()) {
+            backgroundReader = "precomputations";
+        } else if (containsNonNull(planners)) {
+            backgroundReader = "background planners";
+        } else {
+            return;
+        }
+
+        throw new IllegalStateException(
+                feature + " can't be used with " + backgroundReader + ": they would " + hazard + '.'
+        );
+    }
+
+    private static boolean containsNonNull(Object[] array) {
+        for (Object element : array) {
+            if (element != null) {
+                return true;
             }
+        }
+
+        return false;
+    }
+
+    /**
+     * Starts planning the next tick of every car with a speculative planner while the server computes it.
+     */
+    private static void speculate(
+            SpeculativePlanner<?>[] speculativePlanners, Car[] playerCars, World world, Game game, Move[] moves) {
+        World predictedWorld = WorldPredictor.predict(world, game, playerCars, moves);
+
+        for (Car predictedCar : predictedWorld.getCars()) {
+            if (predictedCar == null || !predictedCar.isTeammate()) {
+                continue;
+            }
+
+            SpeculativePlanner<?> speculativePlanner = speculativePlanners[predictedCar.getTeammateIndex()];
+            if (speculativePlanner != null) {
+                speculativePlanner.speculate(predictedCar, predictedWorld, game);
+            }
+        }
+    }
+
+    private PlayerContext readPlayerContext() throws IOException {
+        if (tickLatencies == null && allocationMeter == null && chromeTrace == null && !Trace.isRecording()) {
+            return remoteProcessClient.readPlayerContext();
+        }
+
+        long startNanos = System.nanoTime();
+        Trace.Span span = Trace.beginPhase(Trace.Phase.SOCKET_WAIT, -1, -1);
+        try {
+            remoteProcessClient.awaitMessage();
         } finally {
-            remoteProcessClient.close();
+            span.close();
+        }
+        long receivedNanos = System.nanoTime();
+        tickStartNanos = receivedNanos;
+
+        if (chromeTrace != null) {
+            chromeTrace.record(ChromeTrace.TICK_CATEGORY, "socket wait", startNanos, -1, -1);
+        }
+
+        if (allocationMeter != null) {
+            allocationMeter.startTick();
+        }
+
+        PlayerContext playerContext;
+        span = Trace.beginPhase(Trace.Phase.DECODE, -1, -1);
+        try {
+            playerContext = remoteProcessClient.readPlayerContext();
+        } finally {
+            span.close();
+        }
+
+        if (playerContext != null) {
+            if (tickLatencies != null) {
+                tickLatencies.getSocketWait().record(receivedNanos - startNanos);
+                tickLatencies.getDecode().record(System.nanoTime() - receivedNanos);
+            }
+
+            if (chromeTrace != null) {
+                chromeTrace.record(
+                        ChromeTrace.TICK_CATEGORY, "decode", receivedNanos,
+                        playerContext.getWorld() == null ? -1 : playerContext.getWorld().getTick(), -1
+                );
+            }
+
+            if (allocationMeter != null) {
+                allocationMeter.endDecode(playerContext.getWorld() == null ? -1 : playerContext.getWorld().getTick());
+            }
+        }
+
+        return playerContext;
+    }
+
+    private void writeMoves(Move[] moves, int tick) throws IOException {
+        if (tickLatencies == null && allocationMeter == null && chromeTrace == null && !Trace.isRecording()) {
+            remoteProcessClient.writeMoves(moves);
+            return;
+        }
+
+        if (allocationMeter != null) {
+            allocationMeter.startEncode();
+        }
+
+        long startNanos = System.nanoTime();
+        Trace.Span span = Trace.beginPhase(Trace.Phase.WRITE_MOVES, tick, -1);
+        try {
+            remoteProcessClient.writeMoves(moves);
+        } finally {
+            span.close();
+        }
+
+        if (tickLatencies != null) {
+            tickLatencies.getWriteMoves().record(System.nanoTime() - startNanos);
+        }
+
+        if (chromeTrace != null) {
+            chromeTrace.record(ChromeTrace.TICK_CATEGORY, "write moves", startNanos, tick, -1);
+            chromeTrace.record(ChromeTrace.TICK_CATEGORY, "tick", tickStartNanos, tick, -1);
+        }
+
+        if (allocationMeter != null) {
+            allocationMeter.endTick();
         }
     }
 }
@@ -0,0 +1,201 @@
+import model.UnitPool;
+
+import java.io.File;
+import java.util.Locale;
+
+/**
+ * Optional features of a {@link Runner} session. {@link Runner#main} reads them from the {@code runner.*} system
+ * properties once, and {@link MultiSessionRunner} derives the settings of each of its sessions from them, so that
+ * sessions sharing a JVM don't write to the same files.
+ */
+final class RunnerSettings {
+    private static final String TRANSPORT_PROPERTY = "runner.transport";
+    private static final String JOURNAL_PROPERTY = "runner.journal";
+    private static final String LAZY_WORLD_PROPERTY = "runner.lazyWorld";
+    private static final String UNIT_POOL_PROPERTY = "runner.unitPool";
+    private static final String MAP_CACHE_PROPERTY = "runner.mapCache";
+    private static final String METRICS_PROPERTY = "runner.metrics";
+    private static final String DELTA_PROTOCOL_PROPERTY = "runner.deltaProtocol";
+    private static final String LATENCIES_PROPERTY = "runner.latencies";
+    private static final String MOVE_BUDGET_PROPERTY = "runner.moveBudgetMillis";
+    private static final String PARALLEL_TEAMMATES_PROPERTY = "runner.parallelTeammates";
+    private static final String ALLOCATIONS_PROPERTY = "runner.allocations";
+    private static final String CHROME_TRACE_PROPERTY = "runner.chromeTrace";
+    private static final String CHROME_TRACE_CAPACITY_PROPERTY = "runner.chromeTraceCapacity";
+    private static final String WARM_UP_JOURNAL_PROPERTY = "runner.warmUpJournal";
+    private static final String WARM_UP_TICKS_PROPERTY = "runner.warmUpTicks";
+    private static final String WARM_UP_MILLIS_PROPERTY = "runner.warmUpMillis";
+
+    private static final int DEFAULT_WARM_UP_TICK_COUNT = 2000;
+    private static final long DEFAULT_WARM_UP_MILLIS = 500L;
+    private static final int DEFAULT_CHROME_TRACE_CAPACITY = 1 << 17;
+
+    private final RemoteProcessClient.Transport transport;
+    private final File journalDirectory;
+    private final boolean lazyWorldDecoding;
+    private final String unitPool;
+    private final File mapCacheDirectory;
+    private final boolean metrics;
+    private final boolean deltaProtocol;
+    private final boolean latencies;
+    private final String moveBudgetMillis;
+    private final boolean parallelTeammates;
+    private final boolean allocations;
+    private final File chromeTraceDirectory;
+    private final int chromeTraceCapacity;
+    private final File warmUpJournalDirectory;
+    private final int warmUpTickCount;
+    private final long warmUpMillis;
+
+    private RunnerSettings(
+            RemoteProcessClient.Transport transport, File journalDirectory, boolean lazyWorldDecoding, String unitPool,
+            File mapCacheDirectory, boolean metrics, boolean deltaProtocol, boolean latencies, String moveBudgetMillis,
+            boolean parallelTeammates, boolean allocations, File chromeTraceDirectory, int chromeTraceCapacity,
+            File warmUpJournalDirectory, int warmUpTickCount, long warmUpMillis) {
+        this.transport = transport;
+        this.journalDirectory = journalDirectory;
+        this.lazyWorldDecoding = lazyWorldDecoding;
+        this.unitPool = unitPool;
+        this.mapCacheDirectory = mapCacheDirectory;
+        this.metrics = metrics;
+        this.deltaProtocol = deltaProtocol;
+        this.latencies = latencies;
+        this.moveBudgetMillis = moveBudgetMillis;
+        this.parallelTeammates = parallelTeammates;
+        this.allocations = allocations;
+        this.chromeTraceDirectory = chromeTraceDirectory;
+        this.chromeTraceCapacity = chromeTraceCapacity;
+        this.warmUpJournalDirectory = warmUpJournalDirectory;
+        this.warmUpTickCount = warmUpTickCount;
+        this.warmUpMillis = warmUpMillis;
+    }
+
+    static RunnerSettings fromSystemProperties() {
+        String transport = System.getProperty(TRANSPORT_PROPERTY);
+
+        return new RunnerSettings(
+                transport == null
+                        ? RemoteProcessClient.Transport.STREAM
+                        : RemoteProcessClient.Transport.valueOf(transport.toUpperCase(Locale.ENGLISH)),
+                getFileProperty(JOURNAL_PROPERTY), Boolean.getBoolean(LAZY_WORLD_PROPERTY),
+                System.getProperty(UNIT_POOL_PROPERTY), getFileProperty(MAP_CACHE_PROPERTY),
+                Boolean.getBoolean(METRICS_PROPERTY), Boolean.getBoolean(DELTA_PROTOCOL_PROPERTY),
+                Boolean.getBoolean(LATENCIES_PROPERTY), System.getProperty(MOVE_BUDGET_PROPERTY),
+                Boolean.getBoolean(PARALLEL_TEAMMATES_PROPERTY), Boolean.getBoolean(ALLOCATIONS_PROPERTY),
+                getFileProperty(CHROME_TRACE_PROPERTY),
+                Integer.getInteger(CHROME_TRACE_CAPACITY_PROPERTY, DEFAULT_CHROME_TRACE_CAPACITY),
+                getFileProperty(WARM_UP_JOURNAL_PROPERTY),
+                Integer.getInteger(WARM_UP_TICKS_PROPERTY, DEFAULT_WARM_UP_TICK_COUNT),
+                Long.getLong(WARM_UP_MILLIS_PROPERTY, DEFAULT_WARM_UP_MILLIS)
+        );
+    }
+
+    /**
+     * @return settings of one of several sessions in this JVM: the journal, if any, goes to a subdirectory of its own,
+     * and there is no warm-up, which the caller runs once for all sessions
+     */
+    RunnerSettings forSession(int sessionIndex) {
+        return new RunnerSettings(
+                transport, journalDirectory == null ? null : new File(journalDirectory, "session-" + sessionIndex),
+                lazyWorldDecoding, unitPool, mapCacheDirectory, metrics, deltaProtocol, latencies, moveBudgetMillis,
+                parallelTeammates, allocations, chromeTraceDirectory, chromeTraceCapacity, null, warmUpTickCount,
+                warmUpMillis
+        );
+    }
+
+    private static File getFileProperty(String name) {
+        String path = System.getProperty(name);
+        return path == null ? null : new File(path);
+    }
+
+    public RemoteProcessClient.Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * @return directory to record a {@link TickJournal} in, or {@code null}
+     */
+    public File getJournalDirectory() {
+        return journalDirectory;
+    }
+
+    public boolean isLazyWorldDecoding() {
+        return lazyWorldDecoding;
+    }
+
+    public boolean isUnitPool() {
+        return unitPool != null;
+    }
+
+    /**
+     * @return new pool in the configured mode, or {@code null} if units are not pooled
+     */
+    public UnitPool newUnitPool() {
+        return unitPool == null ? null : new UnitPool("debug".equalsIgnoreCase(unitPool));
+    }
+
+    /**
+     * @return directory of the {@link MapCache}, or {@code null}
+     */
+    public File getMapCacheDirectory() {
+        return mapCacheDirectory;
+    }
+
+    public boolean isMetrics() {
+        return metrics;
+    }
+
+    public boolean isDeltaProtocol() {
+        return deltaProtocol;
+    }
+
+    public boolean isLatencies() {
+        return latencies;
+    }
+
+    public boolean isMoveBudget() {
+        return moveBudgetMillis != null;
+    }
+
+    public long getMoveBudgetNanos() {
+        return (long) (Double.parseDouble(moveBudgetMillis) * 1.0E6D);
+    }
+
+    public boolean isParallelTeammates() {
+        return parallelTeammates;
+    }
+
+    public boolean isAllocations() {
+        return allocations;
+    }
+
+    /**
+     * @return directory to write {@link ChromeTrace} files to, or {@code null}
+     */
+    public File getChromeTraceDirectory() {
+        return chromeTraceDirectory;
+    }
+
+    public int getChromeTraceCapacity() {
+        return chromeTraceCapacity;
+    }
+
+    /**
+     * @return journal directory to play before the game, or {@code null}
+     */
+    public File getWarmUpJournalDirectory() {
+        return warmUpJournalDirectory;
+    }
+
+    public int getWarmUpTickCount() {
+        return warmUpTickCount;
+    }
+
+    /**
+     * @return time after which the warm-up stops even if fewer ticks were played, as the server waits for the token
+     * only so long
+     */
+    public long getWarmUpNanos() {
+        return warmUpMillis * 1000000L;
+    }
+}
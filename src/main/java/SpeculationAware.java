@@ -0,0 +1,11 @@
+/**
+ * Optional interface of a {@link Strategy} that plans the next tick while the runner waits for it. The runner asks for
+ * the planner once after the game context arrives, starts speculating for the car after every moves message it
+ * writes, and resolves the speculation before the next {@link Strategy#move} call of the car.
+ */
+public interface SpeculationAware {
+    /**
+     * @return planner of the strategy, or {@code null} to plan in {@link Strategy#move} only
+     */
+    SpeculativePlanner<?> getSpeculativePlanner();
+}
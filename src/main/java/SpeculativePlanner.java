@@ -0,0 +1,180 @@
+import model.Car;
+import model.Game;
+import model.World;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Plans the next tick of a car while the runner waits for it. Once the moves of a tick are written, the runner
+ * predicts the next world with {@link WorldPredictor} and starts the {@link Planner} on it on a worker thread. When
+ * the real world arrives, the speculation is kept if the car is where the prediction put it, within the position and
+ * angle tolerances, and thrown away otherwise; {@link Strategy#move} then gets the kept plan from
+ * {@link #getSpeculation()} and only has to plan by itself after a miss.
+ * <p>
+ * Predicting reads every unit of the current world, so with lazy world decoding all sections are decoded on each
+ * tick, whether or not the strategy reads them.
+ * <p>
+ * The runner never waits for a speculation. A kept speculation may still be running when {@link Strategy#move} is
+ * called; the strategy can then wait for it with {@link #awaitSpeculation}, which counts against its own move time.
+ */
+public final class SpeculativePlanner<P> implements Closeable {
+    private final Planner<P> planner;
+    private final double positionTolerance;
+    private final double angleTolerance;
+
+    private ThreadPoolExecutor executor;
+    private Future<P> pendingSpeculation;
+    private Car predictedSelf;
+    private int predictedTick;
+    private volatile Future<P> keptSpeculation;
+
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * @param positionTolerance largest distance between the predicted and the actual position of the car
+     * @param angleTolerance    largest difference between the predicted and the actual angle of the car, in radians
+     */
+    public SpeculativePlanner(Planner<P> planner, double positionTolerance, double angleTolerance) {
+        this.planner = planner;
+        this.positionTolerance = positionTolerance;
+        this.angleTolerance = angleTolerance;
+    }
+
+    /**
+     * @return plan made ahead for the current tick and car, or {@code null} if there is none, the prediction missed,
+     * planning failed or is still running
+     */
+    public P getSpeculation() {
+        Future<P> speculation = keptSpeculation;
+        return speculation == null || !speculation.isDone() ? null : getPlan(speculation);
+    }
+
+    /**
+     * Waits at most {@code timeout} for a kept speculation that is still running.
+     *
+     * @return plan made ahead for the current tick and car, or {@code null} if there is none, the prediction missed,
+     * planning failed or did not end in time
+     */
+    public P awaitSpeculation(long timeout, TimeUnit unit) throws InterruptedException {
+        Future<P> speculation = keptSpeculation;
+        if (speculation == null) {
+            return null;
+        }
+
+        try {
+            return speculation.get(timeout, unit);
+        } catch (ExecutionException | CancellationException | TimeoutException ignored) {
+            return null;
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    synchronized void start(String threadName) {
+        if (executor != null) {
+            return;
+        }
+
+        executor = new ThreadPoolExecutor(
+                1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new DaemonThreadFactory(threadName + '-')
+        );
+        executor.prestartAllCoreThreads();
+    }
+
+    /**
+     * Starts planning for the predicted world of the next tick.
+     */
+    void speculate(final Car predictedSelf, final World predictedWorld, final Game game) {
+        if (pendingSpeculation != null) {
+            pendingSpeculation.cancel(true);
+        }
+
+        // A kept speculation nobody waited for must not hold up the worker.
+        Future<P> speculation = keptSpeculation;
+        if (speculation != null) {
+            keptSpeculation = null;
+            speculation.cancel(true);
+        }
+
+        this.predictedSelf = predictedSelf;
+        this.predictedTick = predictedWorld.getTick();
+        pendingSpeculation = executor.submit(new Callable<P>() {
+            @Override
+            public P call() throws Exception {
+                return planner.plan(predictedSelf, predictedWorld, game);
+            }
+        });
+    }
+
+    /**
+     * Compares the speculation for the current tick, if any, with the real world and keeps or drops it without waiting
+     * for it.
+     */
+    void resolve(Car self, World world) {
+        keptSpeculation = null;
+
+        if (pendingSpeculation == null) {
+            return;
+        }
+
+        Future<P> currentSpeculation = pendingSpeculation;
+        pendingSpeculation = null;
+
+        if (world.getTick() != predictedTick || !isPredicted(self)) {
+            currentSpeculation.cancel(true);
+            ++missCount;
+            return;
+        }
+
+        keptSpeculation = currentSpeculation;
+        ++hitCount;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <P> P getPlan(Future<P> speculation) {
+        try {
+            return speculation.get();
+        } catch (ExecutionException | CancellationException ignored) {
+            return null;
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("Unexpected interruption while reading a finished speculation.", e);
+        }
+    }
+
+    private boolean isPredicted(Car self) {
+        return StrictMath.hypot(self.getX() - predictedSelf.getX(), self.getY() - predictedSelf.getY())
+                <= positionTolerance
+                && StrictMath.abs(Math.normalizeAngle(self.getAngle() - predictedSelf.getAngle()))
+                <= angleTolerance;
+    }
+
+    public interface Planner<P> {
+        /**
+         * Runs on a worker thread with a predicted world, while the runner waits for the real one. Should stop early
+         * once the thread is interrupted, which happens when the prediction has already missed.
+         */
+        P plan(Car self, World world, Game game) throws Exception;
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Data shared by the strategies of one team during a game, such as track analysis or predictions of the opponents,
+ * so that it is computed once per tick instead of once per car. The runner passes the same instance to every
+ * strategy that implements {@link BlackboardAware}.
+ * <p>
+ * The board is a set of named {@link Slot}s. In each tick one teammate claims a slot and computes its value, and the
+ * others reuse it. Values are published through an atomic reference together with their tick and must not be modified
+ * afterwards. Teammates may run in parallel, and none of them ever waits for another: a teammate that finds the value
+ * of a slot still being computed computes a private copy, so a slow teammate, or one whose move has timed out, holds
+ * up nobody else.
+ */
+public final class TeamBlackboard {
+    private final ConcurrentMap<String, Slot<?>> slots = new ConcurrentHashMap<>();
+
+    /**
+     * @return slot with the given name, created on first access; all teammates get the same slot for a name and must
+     * agree on the type of its value
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Slot<T> getSlot(String name) {
+        Slot<?> slot = slots.get(name);
+        if (slot == null) {
+            Slot<?> newSlot = new Slot<T>(name);
+            slot = slots.putIfAbsent(name, newSlot);
+            if (slot == null) {
+                slot = newSlot;
+            }
+        }
+
+        return (Slot<T>) slot;
+    }
+
+    public interface Computation<T> {
+        T compute() throws Exception;
+    }
+
+    public static final class Slot<T> {
+        private final String name;
+        private final AtomicReference<Entry<T>> entry = new AtomicReference<>();
+        private final AtomicInteger claimedTick = new AtomicInteger(-1);
+
+        private Slot(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return value published for {@code tick}, or {@code null}
+         */
+        public T get(int tick) {
+            Entry<T> currentEntry = entry.get();
+            return currentEntry != null && currentEntry.tick == tick ? currentEntry.value : null;
+        }
+
+        /**
+         * @return newest published value, possibly of an earlier tick, or {@code null}
+         */
+        public T getLatest() {
+            Entry<T> currentEntry = entry.get();
+            return currentEntry == null ? null : currentEntry.value;
+        }
+
+        /**
+         * @return tick of the newest published value, or {@code -1}
+         */
+        public int getLatestTick() {
+            Entry<T> currentEntry = entry.get();
+            return currentEntry == null ? -1 : currentEntry.tick;
+        }
+
+        /**
+         * Returns the value of {@code tick} without waiting. The first teammate to ask for it in the tick computes and
+         * publishes it, and the teammates asking later get it right away. A teammate asking while it is being
+         * computed runs {@code computation} itself and keeps the result to itself, so that the slot has a single
+         * writer per tick.
+         *
+         * @return value of {@code tick}, or {@code null} if a value of a later tick has already been published
+         * @throws IllegalStateException if the computation of the caller throws a checked exception; whatever it
+         *                               throws, the claim of a publishing caller is released, so that the next
+         *                               teammate asking in the tick claims the slot again
+         */
+        public T getOrCompute(int tick, Computation<? extends T> computation) {
+            while (true) {
+                Entry<T> currentEntry = entry.get();
+                if (currentEntry != null && currentEntry.tick >= tick) {
+                    return currentEntry.tick == tick ? currentEntry.value : null;
+                }
+
+                int currentClaimedTick = claimedTick.get();
+                if (currentClaimedTick >= tick) {
+                    return computePrivately(tick, computation);
+                }
+
+                if (claimedTick.compareAndSet(currentClaimedTick, tick)) {
+                    return compute(tick, computation, currentClaimedTick);
+                }
+            }
+        }
+
+        /**
+         * Publishes a value computed without {@link #getOrCompute}. Values of ticks older than the published one are
+         * ignored.
+         *
+         * @return whether the value was published
+         */
+        public boolean publish(int tick, T value) {
+            Entry<T> newEntry = new Entry<>(tick, value);
+
+            while (true) {
+                Entry<T> currentEntry = entry.get();
+                if (currentEntry != null && currentEntry.tick > tick) {
+                    return false;
+                }
+
+                if (entry.compareAndSet(currentEntry, newEntry)) {
+                    return true;
+                }
+            }
+        }
+
+        private T compute(int tick, Computation<? extends T> computation, int previousClaimedTick) {
+            T value;
+
+            try {
+                value = computation.compute();
+            } catch (RuntimeException | Error e) {
+                claimedTick.compareAndSet(tick, previousClaimedTick);
+                throw e;
+            } catch (Exception e) {
+                claimedTick.compareAndSet(tick, previousClaimedTick);
+                throw new IllegalStateException("Can't compute '" + name + "' for tick " + tick + '.', e);
+            }
+
+            publish(tick, value);
+            return value;
+        }
+
+        private T computePrivately(int tick, Computation<? extends T> computation) {
+            try {
+                return computation.compute();
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Can't compute '" + name + "' for tick " + tick + '.', e);
+            }
+        }
+    }
+
+    private static final class Entry<T> {
+        private final int tick;
+        private final T value;
+
+        private Entry(int tick, T value) {
+            this.tick = tick;
+            this.value = value;
+        }
+    }
+}
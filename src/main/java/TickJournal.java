@@ -0,0 +1,108 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Raw recording of one game as seen by {@link RemoteProcessClient}. The journal directory contains:
+ * <ul>
+ * <li>{@code input.bin} --- every byte received from the server, starting with the team size message;</li>
+ * <li>{@code moves.bin} --- every encoded moves message sent back;</li>
+ * <li>{@code index.bin} --- a header of three little-endian longs, the lengths of {@code input.bin},
+ * {@code moves.bin} and {@code index.bin} in bytes, followed by one pair of little-endian longs per player context
+ * message: the offset of the message in {@code input.bin} and the offset of the following moves message in
+ * {@code moves.bin}.</li>
+ * </ul>
+ * The files are written through {@link MappedFileAppender}s and are padded with zeros past these lengths. The header
+ * is written when the journal is closed and holds zeros until then.
+ */
+public final class TickJournal implements Closeable {
+    static final String INPUT_FILE_NAME = "input.bin";
+    static final String MOVES_FILE_NAME = "moves.bin";
+    static final String INDEX_FILE_NAME = "index.bin";
+    static final int HEADER_SIZE_BYTES = 3 * Long.SIZE / Byte.SIZE;
+    static final int INDEX_ENTRY_SIZE_BYTES = 2 * Long.SIZE / Byte.SIZE;
+
+    private static final int INPUT_CHUNK_SIZE_BYTES = 1 << 24;
+    private static final int MOVES_CHUNK_SIZE_BYTES = 1 << 20;
+    private static final int INDEX_CHUNK_SIZE_BYTES = 1 << 20;
+
+    private final MappedFileAppender input;
+    private final MappedFileAppender moves;
+    private final MappedFileAppender index;
+
+    public TickJournal(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create journal directory '" + directory + "'.");
+        }
+
+        input = new MappedFileAppender(new File(directory, INPUT_FILE_NAME), INPUT_CHUNK_SIZE_BYTES);
+        moves = new MappedFileAppender(new File(directory, MOVES_FILE_NAME), MOVES_CHUNK_SIZE_BYTES);
+        index = new MappedFileAppender(new File(directory, INDEX_FILE_NAME), INDEX_CHUNK_SIZE_BYTES);
+
+        for (int headerOffset = 0; headerOffset < HEADER_SIZE_BYTES; headerOffset += Long.SIZE / Byte.SIZE) {
+            index.appendLong(0L);
+        }
+    }
+
+    /**
+     * @return lengths of {@code input.bin}, {@code moves.bin} and {@code index.bin} of the journal in
+     * {@code directory}, in this order
+     * @throws IOException if the journal has not been closed
+     */
+    static long[] readLengths(File directory) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        RandomAccessFile file = new RandomAccessFile(new File(directory, INDEX_FILE_NAME), "r");
+        try {
+            file.readFully(header.array());
+        } finally {
+            file.close();
+        }
+
+        long[] lengths = {header.getLong(), header.getLong(), header.getLong()};
+        if (lengths[2] < HEADER_SIZE_BYTES) {
+            throw new IOException("Journal '" + directory + "' has not been closed.");
+        }
+
+        return lengths;
+    }
+
+    public void appendInput(ByteBuffer bytes) throws IOException {
+        input.append(bytes);
+    }
+
+    public void appendMoves(ByteBuffer bytes) throws IOException {
+        moves.append(bytes);
+    }
+
+    public void markPlayerContext(long inputOffset) throws IOException {
+        index.appendLong(inputOffset);
+        index.appendLong(moves.getPosition());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            index.putLong(0L, input.getPosition());
+            index.putLong(Long.SIZE / Byte.SIZE, moves.getPosition());
+            index.putLong(2 * Long.SIZE / Byte.SIZE, index.getPosition());
+        } finally {
+            closeFiles();
+        }
+    }
+
+    private void closeFiles() throws IOException {
+        try {
+            input.close();
+        } finally {
+            try {
+                moves.close();
+            } finally {
+                index.close();
+            }
+        }
+    }
+}
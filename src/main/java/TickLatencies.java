@@ -0,0 +1,48 @@
+import java.io.PrintStream;
+
+/**
+ * Latency histograms of the phases of a {@link Runner} tick: waiting on the socket for the next player context,
+ * decoding it, the {@link Strategy#move} call of each teammate and writing the moves.
+ */
+public final class TickLatencies {
+    private final LatencyHistogram socketWait = new LatencyHistogram();
+    private final LatencyHistogram decode = new LatencyHistogram();
+    private final LatencyHistogram[] strategies;
+    private final LatencyHistogram writeMoves = new LatencyHistogram();
+
+    public TickLatencies(int teamSize) {
+        strategies = new LatencyHistogram[teamSize];
+
+        for (int teammateIndex = 0; teammateIndex < teamSize; ++teammateIndex) {
+            strategies[teammateIndex] = new LatencyHistogram();
+        }
+    }
+
+    public LatencyHistogram getSocketWait() {
+        return socketWait;
+    }
+
+    public LatencyHistogram getDecode() {
+        return decode;
+    }
+
+    public LatencyHistogram getStrategy(int teammateIndex) {
+        return strategies[teammateIndex];
+    }
+
+    public LatencyHistogram getWriteMoves() {
+        return writeMoves;
+    }
+
+    public void print(PrintStream out, String mapName) {
+        out.printf("TickLatencies [map=%s, ticks=%d] {%n", mapName, decode.getCount());
+        out.printf("    socket wait: %s%n", socketWait);
+        out.printf("    decode: %s%n", decode);
+
+        for (int teammateIndex = 0; teammateIndex < strategies.length; ++teammateIndex) {
+            out.printf("    strategy #%d: %s%n", teammateIndex, strategies[teammateIndex]);
+        }
+
+        out.printf("    write moves: %s%n}%n", writeMoves);
+    }
+}
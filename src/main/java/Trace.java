@@ -0,0 +1,91 @@
+/**
+ * Java Flight Recorder events for profiling a game. The runner emits an event for each phase of a tick, and strategy
+ * code can mark its own steps, which recordings then show nested in the {@link Strategy#move} event of the tick:
+ * <pre>
+ * try (Trace.Span span = Trace.begin("path search")) {
+ *     ...
+ * }
+ * </pre>
+ * While no recording is running, {@link #begin} returns a shared no-op span after reading a volatile flag. The events
+ * are defined by {@code JfrTraceBackend}, which is loaded reflectively and left out of the solution archive, so this
+ * class also works on a JVM or a build without JFR, where it never records anything.
+ */
+public final class Trace {
+    private static final Span NO_OP_SPAN = new Span() {
+        @Override
+        public void close() {
+            // No operation.
+        }
+    };
+
+    private static final Backend BACKEND = loadBackend();
+
+    private Trace() {
+        throw new UnsupportedOperationException();
+    }
+
+    public static boolean isRecording() {
+        return BACKEND.isRecording();
+    }
+
+    /**
+     * Starts a strategy step. Steps may be nested and must be closed on the thread that began them.
+     */
+    public static Span begin(String name) {
+        return BACKEND.isRecording() ? BACKEND.beginStep(name) : NO_OP_SPAN;
+    }
+
+    /**
+     * @param tick          tick of the phase, or {@code -1} if it is not known yet
+     * @param teammateIndex car of a {@link Phase#STRATEGY_MOVE}, otherwise {@code -1}
+     */
+    static Span beginPhase(Phase phase, int tick, int teammateIndex) {
+        return BACKEND.isRecording() ? BACKEND.beginPhase(phase, tick, teammateIndex) : NO_OP_SPAN;
+    }
+
+    private static Backend loadBackend() {
+        try {
+            return (Backend) Class.forName("JfrTraceBackend").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException ignored) {
+            return new Backend() {
+                @Override
+                public boolean isRecording() {
+                    return false;
+                }
+
+                @Override
+                public Span beginStep(String name) {
+                    return NO_OP_SPAN;
+                }
+
+                @Override
+                public Span beginPhase(Phase phase, int tick, int teammateIndex) {
+                    return NO_OP_SPAN;
+                }
+            };
+        }
+    }
+
+    public interface Span extends AutoCloseable {
+        /**
+         * Ends the span and commits its event.
+         */
+        @Override
+        void close();
+    }
+
+    enum Phase {
+        SOCKET_WAIT,
+        DECODE,
+        STRATEGY_MOVE,
+        WRITE_MOVES
+    }
+
+    interface Backend {
+        boolean isRecording();
+
+        Span beginStep(String name);
+
+        Span beginPhase(Phase phase, int tick, int teammateIndex);
+    }
+}
@@ -0,0 +1,136 @@
+import model.Car;
+import model.Game;
+import model.Move;
+import model.PlayerContext;
+import model.UnitPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * Plays a {@link TickJournal} recording to throwaway strategies before the real game, so that decoding,
+ * {@link Strategy#move} and the geometry and simulation code it calls have been compiled by C2 by the time the race
+ * starts, instead of running in the interpreter and C1 on the starting line. The recorded game is decoded with the
+ * settings of the real one and played over and over until the requested number of ticks is reached or the time limit
+ * is over, whichever comes first, since the server only waits a limited time for the token; every pass gets new
+ * strategy instances, and the moves are encoded and thrown away.
+ * <p>
+ * The journal is in the original protocol, so with {@link DeltaCodec} the decoding of the real game stays cold.
+ */
+final class WarmUp {
+    private static final OutputStream DISCARDING_OUTPUT_STREAM = new OutputStream() {
+        @Override
+        public void write(int b) {
+            // No operation.
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            // No operation.
+        }
+    };
+
+    private final byte[] input;
+    private boolean lazyWorldDecoding;
+    private UnitPool unitPool;
+
+    WarmUp(File journalDirectory) throws IOException {
+        long inputLength = TickJournal.readLengths(journalDirectory)[0];
+
+        RandomAccessFile file = new RandomAccessFile(new File(journalDirectory, TickJournal.INPUT_FILE_NAME), "r");
+        try {
+            input = new byte[(int) inputLength];
+            file.readFully(input);
+        } finally {
+            file.close();
+        }
+    }
+
+    void setLazyWorldDecoding(boolean lazyWorldDecoding) {
+        this.lazyWorldDecoding = lazyWorldDecoding;
+    }
+
+    /**
+     * @param unitPool pool of the warm-up only, never the one of the real game
+     */
+    void setUnitPool(UnitPool unitPool) {
+        this.unitPool = unitPool;
+    }
+
+    /**
+     * @param maxNanos time after which no further tick is started
+     * @return number of ticks played, each with a {@link Strategy#move} call per car
+     */
+    int run(int tickCount, long maxNanos) throws IOException {
+        long deadlineNanos = System.nanoTime() + maxNanos;
+        int playedTickCount = 0;
+
+        while (playedTickCount < tickCount && System.nanoTime() - deadlineNanos < 0L) {
+            int passTickCount = play(tickCount - playedTickCount, deadlineNanos);
+            if (passTickCount == 0) {
+                if (System.nanoTime() - deadlineNanos >= 0L) {
+                    break;
+                }
+                throw new IOException("Warm-up journal contains no player context.");
+            }
+
+            playedTickCount += passTickCount;
+        }
+
+        return playedTickCount;
+    }
+
+    private int play(int maxTickCount, long deadlineNanos) throws IOException {
+        RemoteProcessClient client = new RemoteProcessClient(
+                new ByteArrayInputStream(input), DISCARDING_OUTPUT_STREAM
+        );
+        client.setLazyWorldDecoding(lazyWorldDecoding);
+        client.setUnitPool(unitPool);
+
+        try {
+            int teamSize = client.readTeamSize();
+            Game game = client.readGameContext();
+
+            Strategy[] strategies = new Strategy[teamSize];
+            TeamBlackboard teamBlackboard = new TeamBlackboard();
+
+            for (int strategyIndex = 0; strategyIndex < teamSize; ++strategyIndex) {
+                strategies[strategyIndex] = new MyStrategy();
+
+                if (strategies[strategyIndex] instanceof BlackboardAware) {
+                    ((BlackboardAware) strategies[strategyIndex]).setTeamBlackboard(teamBlackboard);
+                }
+            }
+
+            int tickCount = 0;
+            PlayerContext playerContext;
+
+            while (tickCount < maxTickCount && System.nanoTime() - deadlineNanos < 0L
+                    && (playerContext = client.readPlayerContext()) != null) {
+                Car[] playerCars = playerContext.getCars();
+                if (playerCars == null || playerCars.length != teamSize) {
+                    break;
+                }
+
+                Move[] moves = new Move[teamSize];
+
+                for (int carIndex = 0; carIndex < teamSize; ++carIndex) {
+                    Car playerCar = playerCars[carIndex];
+                    Move move = new Move();
+                    strategies[playerCar.getTeammateIndex()].move(playerCar, playerContext.getWorld(), game, move);
+                    moves[carIndex] = move;
+                }
+
+                client.writeMoves(moves);
+                ++tickCount;
+            }
+
+            return tickCount;
+        } finally {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * Wire-level counters of a {@link RemoteProcessClient}: bytes read and written per message type, decode time per
+ * world section and encode/flush time of moves, both as totals and as the values of the latest tick. Decode time does
+ * not include waiting for the server while the input buffer is refilled in the middle of a section.
+ * <p>
+ * Counters are plain fields updated by the thread that drives the client. {@link #getSnapshot()} is consistent when
+ * called from that thread between messages; from other threads it may mix values of adjacent ticks.
+ */
+public final class WireMetrics {
+    private static final Message[] MESSAGES_BY_TYPE = new Message[RemoteProcessClient.MessageType.values().length];
+    private static final int MESSAGE_TYPE_COUNT = Message.values().length;
+    private static final int SECTION_COUNT = Section.values().length;
+
+    static {
+        for (Message message : Message.values()) {
+            MESSAGES_BY_TYPE[RemoteProcessClient.MessageType.valueOf(message.name()).ordinal()] = message;
+        }
+    }
+
+    private final long[] readMessageCounts = new long[MESSAGE_TYPE_COUNT];
+    private final long[] readByteCounts = new long[MESSAGE_TYPE_COUNT];
+    private final long[] writtenMessageCounts = new long[MESSAGE_TYPE_COUNT];
+    private final long[] writtenByteCounts = new long[MESSAGE_TYPE_COUNT];
+
+    private final long[] decodeNanos = new long[SECTION_COUNT];
+    private final long[] lastDecodeNanos = new long[SECTION_COUNT];
+
+    private long encodeNanos;
+    private long flushNanos;
+    private long lastEncodeNanos;
+    private long lastFlushNanos;
+
+    private long lastPlayerContextByteCount;
+    private long lastMovesByteCount;
+
+    void recordRead(RemoteProcessClient.MessageType messageType, long byteCount) {
+        Message message = MESSAGES_BY_TYPE[messageType.ordinal()];
+        if (message == null) {
+            return;
+        }
+
+        ++readMessageCounts[message.ordinal()];
+        readByteCounts[message.ordinal()] += byteCount;
+
+        if (message == Message.PLAYER_CONTEXT) {
+            lastPlayerContextByteCount = byteCount;
+        }
+    }
+
+    void recordWrite(RemoteProcessClient.MessageType messageType, long byteCount) {
+        Message message = MESSAGES_BY_TYPE[messageType.ordinal()];
+        if (message == null) {
+            return;
+        }
+
+        ++writtenMessageCounts[message.ordinal()];
+        writtenByteCounts[message.ordinal()] += byteCount;
+
+        if (message == Message.MOVES) {
+            lastMovesByteCount = byteCount;
+        }
+    }
+
+    void recordDecode(Section section, long nanos) {
+        decodeNanos[section.ordinal()] += nanos;
+        lastDecodeNanos[section.ordinal()] = nanos;
+    }
+
+    void recordMoves(long encodeNanos, long flushNanos) {
+        this.encodeNanos += encodeNanos;
+        this.flushNanos += flushNanos;
+        lastEncodeNanos = encodeNanos;
+        lastFlushNanos = flushNanos;
+    }
+
+    public Snapshot getSnapshot() {
+        return new Snapshot(this);
+    }
+
+    /**
+     * Message types of the protocol that are counted.
+     */
+    public enum Message {
+        GAME_OVER,
+        AUTHENTICATION_TOKEN,
+        TEAM_SIZE,
+        PROTOCOL_VERSION,
+        GAME_CONTEXT,
+        PLAYER_CONTEXT,
+        MOVES
+    }
+
+    public enum Section {
+        PLAYERS,
+        CARS,
+        PROJECTILES,
+        BONUSES,
+        OIL_SLICKS
+    }
+
+    public static final class Snapshot {
+        private final long[] readMessageCounts;
+        private final long[] readByteCounts;
+        private final long[] writtenMessageCounts;
+        private final long[] writtenByteCounts;
+        private final long[] decodeNanos;
+        private final long[] lastDecodeNanos;
+        private final long encodeNanos;
+        private final long flushNanos;
+        private final long lastEncodeNanos;
+        private final long lastFlushNanos;
+        private final long lastPlayerContextByteCount;
+        private final long lastMovesByteCount;
+
+        private Snapshot(WireMetrics metrics) {
+            readMessageCounts = metrics.readMessageCounts.clone();
+            readByteCounts = metrics.readByteCounts.clone();
+            writtenMessageCounts = metrics.writtenMessageCounts.clone();
+            writtenByteCounts = metrics.writtenByteCounts.clone();
+            decodeNanos = metrics.decodeNanos.clone();
+            lastDecodeNanos = metrics.lastDecodeNanos.clone();
+            encodeNanos = metrics.encodeNanos;
+            flushNanos = metrics.flushNanos;
+            lastEncodeNanos = metrics.lastEncodeNanos;
+            lastFlushNanos = metrics.lastFlushNanos;
+            lastPlayerContextByteCount = metrics.lastPlayerContextByteCount;
+            lastMovesByteCount = metrics.lastMovesByteCount;
+        }
+
+        public long getReadMessageCount(Message message) {
+            return readMessageCounts[message.ordinal()];
+        }
+
+        public long getReadByteCount(Message message) {
+            return readByteCounts[message.ordinal()];
+        }
+
+        public long getWrittenMessageCount(Message message) {
+            return writtenMessageCounts[message.ordinal()];
+        }
+
+        public long getWrittenByteCount(Message message) {
+            return writtenByteCounts[message.ordinal()];
+        }
+
+        public long getDecodeNanos(Section section) {
+            return decodeNanos[section.ordinal()];
+        }
+
+        public long getLastDecodeNanos(Section section) {
+            return lastDecodeNanos[section.ordinal()];
+        }
+
+        public long getEncodeNanos() {
+            return encodeNanos;
+        }
+
+        public long getFlushNanos() {
+            return flushNanos;
+        }
+
+        public long getLastEncodeNanos() {
+            return lastEncodeNanos;
+        }
+
+        public long getLastFlushNanos() {
+            return lastFlushNanos;
+        }
+
+        public long getLastPlayerContextByteCount() {
+            return lastPlayerContextByteCount;
+        }
+
+        public long getLastMovesByteCount() {
+            return lastMovesByteCount;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("WireMetrics {");
+
+            for (Message message : Message.values()) {
+                int index = message.ordinal();
+                if (readMessageCounts[index] > 0L) {
+                    builder.append(String.format(
+                            "%n    read %s: %d message(s), %d byte(s)",
+                            message, readMessageCounts[index], readByteCounts[index]
+                    ));
+                }
+                if (writtenMessageCounts[index] > 0L) {
+                    builder.append(String.format(
+                            "%n    written %s: %d message(s), %d byte(s)",
+                            message, writtenMessageCounts[index], writtenByteCounts[index]
+                    ));
+                }
+            }
+
+            for (Section section : Section.values()) {
+                builder.append(String.format(
+                        "%n    decode %s: %.3f ms", section, decodeNanos[section.ordinal()] / 1.0E6D
+                ));
+            }
+
+            builder.append(String.format(
+                    "%n    encode MOVES: %.3f ms, flush MOVES: %.3f ms%n}", encodeNanos / 1.0E6D, flushNanos / 1.0E6D
+            ));
+
+            return builder.toString();
+        }
+    }
+}
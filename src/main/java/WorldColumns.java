@@ -0,0 +1,177 @@
+import model.BonusType;
+import model.CarType;
+import model.Direction;
+import model.ProjectileType;
+import model.TileType;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays view of one player context, filled by {@link RemoteProcessClient#readPlayerContext(WorldColumns)}
+ * and reused from tick to tick. Column arrays only grow, so their length is a capacity: the valid rows of every unit
+ * table are {@code [0, count)}. Absent units (sent as {@code null} by the server) are skipped and take no row.
+ * <p>
+ * Contents are overwritten by the next read, so values that must survive a tick have to be copied out.
+ */
+public final class WorldColumns {
+    private static final int INITIAL_CAPACITY = 16;
+
+    public final CarColumns myCars = new CarColumns();
+
+    public boolean worldPresent;
+    public int tick;
+    public int tickCount;
+    public int lastTickIndex;
+    public int width;
+    public int height;
+
+    public final PlayerColumns players = new PlayerColumns();
+    public final CarColumns cars = new CarColumns();
+    public final ProjectileColumns projectiles = new ProjectileColumns();
+    public final BonusColumns bonuses = new BonusColumns();
+    public final OilSlickColumns oilSlicks = new OilSlickColumns();
+
+    public String mapName;
+    public TileType[][] tilesXY;
+    public int[][] waypoints;
+    public Direction startingDirection;
+
+    public static final class PlayerColumns {
+        public int count;
+        public long[] id = new long[INITIAL_CAPACITY];
+        public boolean[] me = new boolean[INITIAL_CAPACITY];
+        public String[] name = new String[INITIAL_CAPACITY];
+        public boolean[] strategyCrashed = new boolean[INITIAL_CAPACITY];
+        public int[] score = new int[INITIAL_CAPACITY];
+
+        int addRow() {
+            if (count == id.length) {
+                int capacity = count << 1;
+                id = Arrays.copyOf(id, capacity);
+                me = Arrays.copyOf(me, capacity);
+                name = Arrays.copyOf(name, capacity);
+                strategyCrashed = Arrays.copyOf(strategyCrashed, capacity);
+                score = Arrays.copyOf(score, capacity);
+            }
+
+            return count++;
+        }
+    }
+
+    public abstract static class UnitColumns {
+        public int count;
+        public long[] id = new long[INITIAL_CAPACITY];
+        public double[] mass = new double[INITIAL_CAPACITY];
+        public double[] x = new double[INITIAL_CAPACITY];
+        public double[] y = new double[INITIAL_CAPACITY];
+        public double[] speedX = new double[INITIAL_CAPACITY];
+        public double[] speedY = new double[INITIAL_CAPACITY];
+        public double[] angle = new double[INITIAL_CAPACITY];
+        public double[] angularSpeed = new double[INITIAL_CAPACITY];
+
+        int addRow() {
+            if (count == id.length) {
+                int capacity = count << 1;
+                id = Arrays.copyOf(id, capacity);
+                mass = Arrays.copyOf(mass, capacity);
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                speedX = Arrays.copyOf(speedX, capacity);
+                speedY = Arrays.copyOf(speedY, capacity);
+                angle = Arrays.copyOf(angle, capacity);
+                angularSpeed = Arrays.copyOf(angularSpeed, capacity);
+                grow(capacity);
+            }
+
+            return count++;
+        }
+
+        abstract void grow(int capacity);
+    }
+
+    public static final class CarColumns extends UnitColumns {
+        public double[] width = new double[INITIAL_CAPACITY];
+        public double[] height = new double[INITIAL_CAPACITY];
+        public long[] playerId = new long[INITIAL_CAPACITY];
+        public int[] teammateIndex = new int[INITIAL_CAPACITY];
+        public boolean[] teammate = new boolean[INITIAL_CAPACITY];
+        public CarType[] type = new CarType[INITIAL_CAPACITY];
+        public int[] projectileCount = new int[INITIAL_CAPACITY];
+        public int[] nitroChargeCount = new int[INITIAL_CAPACITY];
+        public int[] oilCanisterCount = new int[INITIAL_CAPACITY];
+        public int[] remainingProjectileCooldownTicks = new int[INITIAL_CAPACITY];
+        public int[] remainingNitroCooldownTicks = new int[INITIAL_CAPACITY];
+        public int[] remainingOilCooldownTicks = new int[INITIAL_CAPACITY];
+        public int[] remainingNitroTicks = new int[INITIAL_CAPACITY];
+        public int[] remainingOiledTicks = new int[INITIAL_CAPACITY];
+        public double[] durability = new double[INITIAL_CAPACITY];
+        public double[] enginePower = new double[INITIAL_CAPACITY];
+        public double[] wheelTurn = new double[INITIAL_CAPACITY];
+        public int[] nextWaypointX = new int[INITIAL_CAPACITY];
+        public int[] nextWaypointY = new int[INITIAL_CAPACITY];
+        public boolean[] finishedTrack = new boolean[INITIAL_CAPACITY];
+
+        @Override
+        void grow(int capacity) {
+            width = Arrays.copyOf(width, capacity);
+            height = Arrays.copyOf(height, capacity);
+            playerId = Arrays.copyOf(playerId, capacity);
+            teammateIndex = Arrays.copyOf(teammateIndex, capacity);
+            teammate = Arrays.copyOf(teammate, capacity);
+            type = Arrays.copyOf(type, capacity);
+            projectileCount = Arrays.copyOf(projectileCount, capacity);
+            nitroChargeCount = Arrays.copyOf(nitroChargeCount, capacity);
+            oilCanisterCount = Arrays.copyOf(oilCanisterCount, capacity);
+            remainingProjectileCooldownTicks = Arrays.copyOf(remainingProjectileCooldownTicks, capacity);
+            remainingNitroCooldownTicks = Arrays.copyOf(remainingNitroCooldownTicks, capacity);
+            remainingOilCooldownTicks = Arrays.copyOf(remainingOilCooldownTicks, capacity);
+            remainingNitroTicks = Arrays.copyOf(remainingNitroTicks, capacity);
+            remainingOiledTicks = Arrays.copyOf(remainingOiledTicks, capacity);
+            durability = Arrays.copyOf(durability, capacity);
+            enginePower = Arrays.copyOf(enginePower, capacity);
+            wheelTurn = Arrays.copyOf(wheelTurn, capacity);
+            nextWaypointX = Arrays.copyOf(nextWaypointX, capacity);
+            nextWaypointY = Arrays.copyOf(nextWaypointY, capacity);
+            finishedTrack = Arrays.copyOf(finishedTrack, capacity);
+        }
+    }
+
+    public static final class ProjectileColumns extends UnitColumns {
+        public double[] radius = new double[INITIAL_CAPACITY];
+        public long[] carId = new long[INITIAL_CAPACITY];
+        public long[] playerId = new long[INITIAL_CAPACITY];
+        public ProjectileType[] type = new ProjectileType[INITIAL_CAPACITY];
+
+        @Override
+        void grow(int capacity) {
+            radius = Arrays.copyOf(radius, capacity);
+            carId = Arrays.copyOf(carId, capacity);
+            playerId = Arrays.copyOf(playerId, capacity);
+            type = Arrays.copyOf(type, capacity);
+        }
+    }
+
+    public static final class BonusColumns extends UnitColumns {
+        public double[] width = new double[INITIAL_CAPACITY];
+        public double[] height = new double[INITIAL_CAPACITY];
+        public BonusType[] type = new BonusType[INITIAL_CAPACITY];
+
+        @Override
+        void grow(int capacity) {
+            width = Arrays.copyOf(width, capacity);
+            height = Arrays.copyOf(height, capacity);
+            type = Arrays.copyOf(type, capacity);
+        }
+    }
+
+    public static final class OilSlickColumns extends UnitColumns {
+        public double[] radius = new double[INITIAL_CAPACITY];
+        public int[] remainingLifetime = new int[INITIAL_CAPACITY];
+
+        @Override
+        void grow(int capacity) {
+            radius = Arrays.copyOf(radius, capacity);
+            remainingLifetime = Arrays.copyOf(remainingLifetime, capacity);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import model.Bonus;
+import model.Car;
+import model.Game;
+import model.Move;
+import model.OilSlick;
+import model.Projectile;
+import model.World;
+
+/**
+ * Cheap guess of the world of the next tick: every unit keeps its speed and angular speed for one tick, our cars turn
+ * their engine power and wheels towards the moves just sent as far as the game allows, and counters run down by one.
+ * Collisions, friction and pick-ups are ignored. All units are copied, so the prediction stays valid after a
+ * {@link model.UnitPool} has recycled the units of the current tick and after a {@link LazyWorld} buffer is reused.
+ * Copying reads every unit array, which decodes all sections of a {@link LazyWorld}.
+ */
+final class WorldPredictor {
+    private WorldPredictor() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @param playerCars cars of the player, in the order of {@code moves}
+     */
+    static World predict(World world, Game game, Car[] playerCars, Move[] moves) {
+        Car[] cars = world.getCars();
+        Car[] predictedCars = new Car[cars.length];
+
+        for (int carIndex = 0; carIndex < cars.length; ++carIndex) {
+            Car car = cars[carIndex];
+            predictedCars[carIndex] = car == null ? null : predict(car, game, getMove(car, playerCars, moves));
+        }
+
+        Projectile[] projectiles = world.getProjectiles();
+        Projectile[] predictedProjectiles = new Projectile[projectiles.length];
+
+        for (int projectileIndex = 0; projectileIndex < projectiles.length; ++projectileIndex) {
+            Projectile projectile = projectiles[projectileIndex];
+            predictedProjectiles[projectileIndex] = projectile == null ? null : new Projectile(
+                    projectile.getId(), projectile.getMass(), projectile.getX() + projectile.getSpeedX(),
+                    projectile.getY() + projectile.getSpeedY(), projectile.getSpeedX(), projectile.getSpeedY(),
+                    Math.normalizeAngle(projectile.getAngle() + projectile.getAngularSpeed()),
+                    projectile.getAngularSpeed(), projectile.getRadius(), projectile.getCarId(),
+                    projectile.getPlayerId(), projectile.getType()
+            );
+        }
+
+        Bonus[] bonuses = world.getBonuses();
+        Bonus[] predictedBonuses = new Bonus[bonuses.length];
+
+        for (int bonusIndex = 0; bonusIndex < bonuses.length; ++bonusIndex) {
+            Bonus bonus = bonuses[bonusIndex];
+            predictedBonuses[bonusIndex] = bonus == null ? null : new Bonus(
+                    bonus.getId(), bonus.getMass(), bonus.getX(), bonus.getY(), bonus.getSpeedX(), bonus.getSpeedY(),
+                    bonus.getAngle(), bonus.getAngularSpeed(), bonus.getWidth(), bonus.getHeight(), bonus.getType()
+            );
+        }
+
+        OilSlick[] oilSlicks = world.getOilSlicks();
+        OilSlick[] predictedOilSlicks = new OilSlick[oilSlicks.length];
+
+        for (int oilSlickIndex = 0; oilSlickIndex < oilSlicks.length; ++oilSlickIndex) {
+            OilSlick oilSlick = oilSlicks[oilSlickIndex];
+            predictedOilSlicks[oilSlickIndex] = oilSlick == null ? null : new OilSlick(
+                    oilSlick.getId(), oilSlick.getMass(), oilSlick.getX(), oilSlick.getY(), oilSlick.getSpeedX(),
+                    oilSlick.getSpeedY(), oilSlick.getAngle(), oilSlick.getAngularSpeed(), oilSlick.getRadius(),
+                    StrictMath.max(0, oilSlick.getRemainingLifetime() - 1)
+            );
+        }
+
+        return new World(
+                world.getTick() + 1, world.getTickCount(), world.getLastTickIndex(), world.getWidth(),
+                world.getHeight(), world.getPlayers(), predictedCars, predictedProjectiles, predictedBonuses,
+                predictedOilSlicks, world.getMapName(), world.getTilesXY(), world.getWaypoints(),
+                world.getStartingDirection()
+        );
+    }
+
+    private static Car predict(Car car, Game game, Move move) {
+        double enginePower = car.getEnginePower();
+        double wheelTurn = car.getWheelTurn();
+
+        if (move != null) {
+            enginePower = approach(
+                    enginePower, limit(move.getEnginePower(), 1.0D), game.getCarEnginePowerChangePerTick()
+            );
+            wheelTurn = approach(wheelTurn, limit(move.getWheelTurn(), 1.0D), game.getCarWheelTurnChangePerTick());
+        }
+
+        return new Car(
+                car.getId(), car.getMass(), car.getX() + car.getSpeedX(), car.getY() + car.getSpeedY(),
+                car.getSpeedX(), car.getSpeedY(), Math.normalizeAngle(car.getAngle() + car.getAngularSpeed()),
+                car.getAngularSpeed(), car.getWidth(), car.getHeight(), car.getPlayerId(), car.getTeammateIndex(),
+                car.isTeammate(), car.getType(), car.getProjectileCount(), car.getNitroChargeCount(),
+                car.getOilCanisterCount(),
+                countDown(car.getRemainingProjectileCooldownTicks()), countDown(car.getRemainingNitroCooldownTicks()),
+                countDown(car.getRemainingOilCooldownTicks()), countDown(car.getRemainingNitroTicks()),
+                countDown(car.getRemainingOiledTicks()), car.getDurability(), enginePower, wheelTurn,
+                car.getNextWaypointX(), car.getNextWaypointY(), car.isFinishedTrack()
+        );
+    }
+
+    private static Move getMove(Car car, Car[] playerCars, Move[] moves) {
+        for (int carIndex = 0; carIndex < playerCars.length; ++carIndex) {
+            if (playerCars[carIndex].getId() == car.getId()) {
+                return moves[carIndex];
+            }
+        }
+
+        return null;
+    }
+
+    private static double approach(double value, double target, double maxChange) {
+        return value + StrictMath.max(-maxChange, StrictMath.min(maxChange, target - value));
+    }
+
+    private static double limit(double value, double maxAbsValue) {
+        return StrictMath.max(-maxAbsValue, StrictMath.min(maxAbsValue, value));
+    }
+
+    private static int countDown(int ticks) {
+        return StrictMath.max(0, ticks - 1);
+    }
+}
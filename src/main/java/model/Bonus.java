@@ -4,7 +4,7 @@ package model;
  * Класс, определяющий бонус --- неподвижный полезный объект. Содержит также все свойства прямоугольного юнита.
  */
 public class Bonus extends RectangularUnit {
-    private final BonusType type;
+    private BonusType type;
 
     public Bonus(
             long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed,
@@ -14,6 +14,14 @@ public class Bonus extends RectangularUnit {
         this.type = type;
     }
 
+    void update(
+            long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed,
+            double width, double height, BonusType type) {
+        update(id, mass, x, y, speedX, speedY, angle, angularSpeed, width, height);
+
+        this.type = type;
+    }
+
     /**
      * @return Возвращает тип бонуса.
      */
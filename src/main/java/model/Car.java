@@ -4,31 +4,31 @@ package model;
  * Класс, определяющий кодемобиль. Содержит также все свойства прямоугольного юнита.
  */
 public class Car extends RectangularUnit {
-    private final long playerId;
-    private final int teammateIndex;
-    private final boolean teammate;
-    private final CarType type;
+    private long playerId;
+    private int teammateIndex;
+    private boolean teammate;
+    private CarType type;
 
-    private final int projectileCount;
-    private final int nitroChargeCount;
-    private final int oilCanisterCount;
+    private int projectileCount;
+    private int nitroChargeCount;
+    private int oilCanisterCount;
 
-    private final int remainingProjectileCooldownTicks;
-    private final int remainingNitroCooldownTicks;
-    private final int remainingOilCooldownTicks;
+    private int remainingProjectileCooldownTicks;
+    private int remainingNitroCooldownTicks;
+    private int remainingOilCooldownTicks;
 
-    private final int remainingNitroTicks;
-    private final int remainingOiledTicks;
+    private int remainingNitroTicks;
+    private int remainingOiledTicks;
 
-    private final double durability;
+    private double durability;
 
-    private final double enginePower;
-    private final double wheelTurn;
+    private double enginePower;
+    private double wheelTurn;
 
-    private final int nextWaypointX;
-    private final int nextWaypointY;
+    private int nextWaypointX;
+    private int nextWaypointY;
 
-    private final boolean finishedTrack;
+    private boolean finishedTrack;
 
     public Car(
             long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed,
@@ -59,6 +59,35 @@ public class Car extends RectangularUnit {
         this.finishedTrack = finishedTrack;
     }
 
+    void update(
+            long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed,
+            double width, double height, long playerId, int teammateIndex, boolean teammate, CarType type,
+            int projectileCount, int nitroChargeCount, int oilCanisterCount, int remainingProjectileCooldownTicks,
+            int remainingNitroCooldownTicks, int remainingOilCooldownTicks, int remainingNitroTicks,
+            int remainingOiledTicks, double durability, double enginePower, double wheelTurn, int nextWaypointX,
+            int nextWaypointY, boolean finishedTrack) {
+        update(id, mass, x, y, speedX, speedY, angle, angularSpeed, width, height);
+
+        this.playerId = playerId;
+        this.teammateIndex = teammateIndex;
+        this.teammate = teammate;
+        this.type = type;
+        this.projectileCount = projectileCount;
+        this.nitroChargeCount = nitroChargeCount;
+        this.oilCanisterCount = oilCanisterCount;
+        this.remainingProjectileCooldownTicks = remainingProjectileCooldownTicks;
+        this.remainingNitroCooldownTicks = remainingNitroCooldownTicks;
+        this.remainingOilCooldownTicks = remainingOilCooldownTicks;
+        this.remainingNitroTicks = remainingNitroTicks;
+        this.remainingOiledTicks = remainingOiledTicks;
+        this.durability = durability;
+        this.enginePower = enginePower;
+        this.wheelTurn = wheelTurn;
+        this.nextWaypointX = nextWaypointX;
+        this.nextWaypointY = nextWaypointY;
+        this.finishedTrack = finishedTrack;
+    }
+
     /**
      * @return Возвращает идентификатор игрока, которому принадлежит кодемобиль.
      */
@@ -4,7 +4,7 @@ package model;
  * Базовый класс для определения круглых объектов. Содержит также все свойства юнита.
  */
 public abstract class CircularUnit extends Unit {
-    private final double radius;
+    private double radius;
 
     protected CircularUnit(
             long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed,
@@ -14,6 +14,14 @@ public abstract class CircularUnit extends Unit {
         this.radius = radius;
     }
 
+    void update(
+            long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed,
+            double radius) {
+        update(id, mass, x, y, speedX, speedY, angle, angularSpeed);
+
+        this.radius = radius;
+    }
+
     /**
      * @return Возвращает радиус объекта.
      */
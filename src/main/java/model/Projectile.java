@@ -4,9 +4,9 @@ package model;
  * Класс, определяющий метательный снаряд. Содержит также все свойства круглого юнита.
  */
 public class Projectile extends CircularUnit {
-    private final long carId;
-    private final long playerId;
-    private final ProjectileType type;
+    private long carId;
+    private long playerId;
+    private ProjectileType type;
 
     public Projectile(
             long id, double mass, double x, double y,
@@ -20,6 +20,16 @@ public class Projectile extends CircularUnit {
         this.type = type;
     }
 
+    void update(
+            long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed,
+            double radius, long carId, long playerId, ProjectileType type) {
+        update(id, mass, x, y, speedX, speedY, angle, angularSpeed, radius);
+
+        this.carId = carId;
+        this.playerId = playerId;
+        this.type = type;
+    }
+
     /**
      * @return Возвращает идентификатор кодемобиля, выпустившего данный снаряд.
      */
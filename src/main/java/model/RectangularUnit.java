@@ -4,8 +4,8 @@ package model;
  * Базовый класс для определения прямоугольных объектов. Содержит также все свойства юнита.
  */
 public abstract class RectangularUnit extends Unit {
-    private final double width;
-    private final double height;
+    private double width;
+    private double height;
 
     protected RectangularUnit(
             long id, double mass, double x, double y,
@@ -17,6 +17,15 @@ public abstract class RectangularUnit extends Unit {
         this.height = height;
     }
 
+    void update(
+            long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed,
+            double width, double height) {
+        update(id, mass, x, y, speedX, speedY, angle, angularSpeed);
+
+        this.width = width;
+        this.height = height;
+    }
+
     /**
      * @return Возвращает ширину объекта.
      */
@@ -6,14 +6,17 @@ import static java.lang.StrictMath.*;
  * Базовый класс для определения объектов (<<юнитов>>) на игровом поле.
  */
 public abstract class Unit {
-    private final long id;
-    private final double mass;
-    private final double x;
-    private final double y;
-    private final double speedX;
-    private final double speedY;
-    private final double angle;
-    private final double angularSpeed;
+    private long id;
+    private double mass;
+    private double x;
+    private double y;
+    private double speedX;
+    private double speedY;
+    private double angle;
+    private double angularSpeed;
+
+    private UnitPool pool;
+    private int lease;
 
     protected Unit(
             long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed) {
@@ -27,10 +30,38 @@ public abstract class Unit {
         this.angularSpeed = angularSpeed;
     }
 
+    void update(
+            long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed) {
+        this.id = id;
+        this.mass = mass;
+        this.x = x;
+        this.y = y;
+        this.speedX = speedX;
+        this.speedY = speedY;
+        this.angle = angle;
+        this.angularSpeed = angularSpeed;
+    }
+
+    void lease(UnitPool pool, int lease) {
+        this.pool = pool;
+        this.lease = lease;
+    }
+
+    int getLease() {
+        return lease;
+    }
+
+    private void ensureLeased() {
+        if (pool != null) {
+            pool.ensureLeased(this, id, lease);
+        }
+    }
+
     /**
      * @return Возвращает уникальный идентификатор объекта.
      */
     public long getId() {
+        ensureLeased();
         return id;
     }
 
@@ -38,6 +69,7 @@ public abstract class Unit {
      * @return Возвращает массу объекта в единицах массы.
      */
     public double getMass() {
+        ensureLeased();
         return mass;
     }
 
@@ -45,6 +77,7 @@ public abstract class Unit {
      * @return Возвращает X-координату центра объекта. Ось абсцисс направлена слева направо.
      */
     public final double getX() {
+        ensureLeased();
         return x;
     }
 
@@ -52,6 +85,7 @@ public abstract class Unit {
      * @return Возвращает Y-координату центра объекта. Ось ординат направлена свеху вниз.
      */
     public final double getY() {
+        ensureLeased();
         return y;
     }
 
@@ -59,6 +93,7 @@ public abstract class Unit {
      * @return Возвращает X-составляющую скорости объекта. Ось абсцисс направлена слева направо.
      */
     public final double getSpeedX() {
+        ensureLeased();
         return speedX;
     }
 
@@ -66,6 +101,7 @@ public abstract class Unit {
      * @return Возвращает Y-составляющую скорости объекта. Ось ординат направлена свеху вниз.
      */
     public final double getSpeedY() {
+        ensureLeased();
         return speedY;
     }
 
@@ -74,6 +110,7 @@ public abstract class Unit {
      * Положительные значения соответствуют повороту по часовой стрелке.
      */
     public final double getAngle() {
+        ensureLeased();
         return angle;
     }
 
@@ -82,6 +119,7 @@ public abstract class Unit {
      * Положительные значения соответствуют вращению по часовой стрелке.
      */
     public double getAngularSpeed() {
+        ensureLeased();
         return angularSpeed;
     }
 
@@ -92,6 +130,7 @@ public abstract class Unit {
      * данного объекта и вектором из центра данного объекта к указанной точке.
      */
     public double getAngleTo(double x, double y) {
+        ensureLeased();
         double absoluteAngleTo = atan2(y - this.y, x - this.x);
         double relativeAngleTo = absoluteAngleTo - angle;
 
@@ -112,6 +151,7 @@ public abstract class Unit {
      * данного объекта и вектором из центра данного объекта к центру указанного объекта.
      */
     public double getAngleTo(Unit unit) {
+        unit.ensureLeased();
         return getAngleTo(unit.x, unit.y);
     }
 
@@ -121,6 +161,7 @@ public abstract class Unit {
      * @return Возвращает расстояние до точки от центра данного объекта.
      */
     public double getDistanceTo(double x, double y) {
+        ensureLeased();
         return hypot(x - this.x, y - this.y);
     }
 
@@ -129,6 +170,7 @@ public abstract class Unit {
      * @return Возвращает расстояние от центра данного объекта до центра указанного объекта.
      */
     public double getDistanceTo(Unit unit) {
+        unit.ensureLeased();
         return getDistanceTo(unit.x, unit.y);
     }
 }
@@ -0,0 +1,226 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Пул объектов юнитов, позволяющий не пересоздавать их после каждого тика.
+ * <p/>
+ * Контракт: объект, полученный из пула на некотором тике, действителен только до следующего вызова
+ * {@link #startTick()}. После этого пул может заполнить тот же объект данными другого тика (для юнита с тем же
+ * идентификатором или для совершенно другого юнита), поэтому сохранять ссылки на юниты между тиками нельзя ---
+ * нужные значения следует копировать.
+ * <p/>
+ * В отладочном режиме пул не выдаёт объект повторно на тике, следующем сразу за тем, на котором он был выдан, а
+ * методы базового класса {@link Unit} проверяют, что объект выдан на текущем тике, и бросают
+ * {@link IllegalStateException} при обращении к устаревшему объекту.
+ */
+public final class UnitPool {
+    private final boolean debug;
+    private int generation;
+
+    private final Slab<Car> cars = new Slab<>();
+    private final Slab<Projectile> projectiles = new Slab<>();
+    private final Slab<Bonus> bonuses = new Slab<>();
+    private final Slab<OilSlick> oilSlicks = new Slab<>();
+
+    public UnitPool(boolean debug) {
+        this.debug = debug;
+    }
+
+    public boolean isDebug() {
+        return debug;
+    }
+
+    /**
+     * Начинает новый тик. Все объекты, выданные ранее, становятся недействительными.
+     */
+    public void startTick() {
+        ++generation;
+
+        cars.startTick(generation, debug);
+        projectiles.startTick(generation, debug);
+        bonuses.startTick(generation, debug);
+        oilSlicks.startTick(generation, debug);
+    }
+
+    public Car obtainCar(
+            long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed,
+            double width, double height, long playerId, int teammateIndex, boolean teammate, CarType type,
+            int projectileCount, int nitroChargeCount, int oilCanisterCount, int remainingProjectileCooldownTicks,
+            int remainingNitroCooldownTicks, int remainingOilCooldownTicks, int remainingNitroTicks,
+            int remainingOiledTicks, double durability, double enginePower, double wheelTurn, int nextWaypointX,
+            int nextWaypointY, boolean finishedTrack) {
+        Car car = cars.reuse(id, generation);
+
+        if (car == null) {
+            car = new Car(
+                    id, mass, x, y, speedX, speedY, angle, angularSpeed, width, height, playerId, teammateIndex,
+                    teammate, type, projectileCount, nitroChargeCount, oilCanisterCount,
+                    remainingProjectileCooldownTicks, remainingNitroCooldownTicks, remainingOilCooldownTicks,
+                    remainingNitroTicks, remainingOiledTicks, durability, enginePower, wheelTurn, nextWaypointX,
+                    nextWaypointY, finishedTrack
+            );
+        } else {
+            car.update(
+                    id, mass, x, y, speedX, speedY, angle, angularSpeed, width, height, playerId, teammateIndex,
+                    teammate, type, projectileCount, nitroChargeCount, oilCanisterCount,
+                    remainingProjectileCooldownTicks, remainingNitroCooldownTicks, remainingOilCooldownTicks,
+                    remainingNitroTicks, remainingOiledTicks, durability, enginePower, wheelTurn, nextWaypointX,
+                    nextWaypointY, finishedTrack
+            );
+        }
+
+        return cars.issue(car, this, generation);
+    }
+
+    public Projectile obtainProjectile(
+            long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed,
+            double radius, long carId, long playerId, ProjectileType type) {
+        Projectile projectile = projectiles.reuse(id, generation);
+
+        if (projectile == null) {
+            projectile = new Projectile(
+                    id, mass, x, y, speedX, speedY, angle, angularSpeed, radius, carId, playerId, type
+            );
+        } else {
+            projectile.update(id, mass, x, y, speedX, speedY, angle, angularSpeed, radius, carId, playerId, type);
+        }
+
+        return projectiles.issue(projectile, this, generation);
+    }
+
+    public Bonus obtainBonus(
+            long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed,
+            double width, double height, BonusType type) {
+        Bonus bonus = bonuses.reuse(id, generation);
+
+        if (bonus == null) {
+            bonus = new Bonus(id, mass, x, y, speedX, speedY, angle, angularSpeed, width, height, type);
+        } else {
+            bonus.update(id, mass, x, y, speedX, speedY, angle, angularSpeed, width, height, type);
+        }
+
+        return bonuses.issue(bonus, this, generation);
+    }
+
+    public OilSlick obtainOilSlick(
+            long id, double mass, double x, double y, double speedX, double speedY, double angle, double angularSpeed,
+            double radius, int remainingLifetime) {
+        OilSlick oilSlick = oilSlicks.reuse(id, generation);
+
+        if (oilSlick == null) {
+            oilSlick = new OilSlick(id, mass, x, y, speedX, speedY, angle, angularSpeed, radius, remainingLifetime);
+        } else {
+            oilSlick.update(id, mass, x, y, speedX, speedY, angle, angularSpeed, radius, remainingLifetime);
+        }
+
+        return oilSlicks.issue(oilSlick, this, generation);
+    }
+
+    void ensureLeased(Unit unit, long id, int lease) {
+        if (debug && lease != generation) {
+            throw new IllegalStateException(String.format(
+                    "%s [id=%d] was obtained %d tick(s) ago and must not be kept across ticks.",
+                    unit.getClass().getSimpleName(), id, generation - lease
+            ));
+        }
+    }
+
+    /**
+     * Объекты одного типа: выданные на текущем и предыдущем тиках, индекс предыдущих по идентификатору и свободные.
+     */
+    private static final class Slab<U extends Unit> {
+        private List<U> issued = new ArrayList<>();
+        private List<U> previouslyIssued = new ArrayList<>();
+        private final List<U> free = new ArrayList<>();
+
+        private long[] previousIds = new long[16];
+        private Unit[] previousUnits = new Unit[16];
+        private boolean indexed;
+
+        void startTick(int generation, boolean debug) {
+            for (int unitIndex = previouslyIssued.size() - 1; unitIndex >= 0; --unitIndex) {
+                U unit = previouslyIssued.get(unitIndex);
+                if (unit.getLease() != generation - 1) {
+                    free.add(unit);
+                }
+            }
+
+            List<U> retired = previouslyIssued;
+            previouslyIssued = issued;
+            issued = retired;
+            issued.clear();
+
+            indexed = !debug;
+            if (indexed) {
+                indexPreviouslyIssued();
+            }
+        }
+
+        U reuse(long id, int generation) {
+            if (indexed) {
+                @SuppressWarnings("unchecked") U unit = (U) findPrevious(id);
+                if (unit != null && unit.getLease() != generation) {
+                    return unit;
+                }
+            }
+
+            int freeCount = free.size();
+            return freeCount == 0 ? null : free.remove(freeCount - 1);
+        }
+
+        U issue(U unit, UnitPool pool, int generation) {
+            unit.lease(pool, generation);
+            issued.add(unit);
+            return unit;
+        }
+
+        private void indexPreviouslyIssued() {
+            int unitCount = previouslyIssued.size();
+            int capacity = previousUnits.length;
+
+            while (capacity < unitCount << 1) {
+                capacity <<= 1;
+            }
+
+            if (capacity != previousUnits.length) {
+                previousIds = new long[capacity];
+                previousUnits = new Unit[capacity];
+            } else {
+                Arrays.fill(previousUnits, null);
+            }
+
+            for (int unitIndex = 0; unitIndex < unitCount; ++unitIndex) {
+                U unit = previouslyIssued.get(unitIndex);
+                long id = unit.getId();
+                int slot = getSlot(id);
+
+                while (previousUnits[slot] != null && previousIds[slot] != id) {
+                    slot = (slot + 1) & (previousUnits.length - 1);
+                }
+
+                if (previousUnits[slot] == null) {
+                    previousIds[slot] = id;
+                    previousUnits[slot] = unit;
+                }
+            }
+        }
+
+        private Unit findPrevious(long id) {
+            for (int slot = getSlot(id); previousUnits[slot] != null; slot = (slot + 1) & (previousUnits.length - 1)) {
+                if (previousIds[slot] == id) {
+                    return previousUnits[slot];
+                }
+            }
+
+            return null;
+        }
+
+        private int getSlot(long id) {
+            long hash = id * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & (previousUnits.length - 1);
+        }
+    }
+}